@@ -0,0 +1,254 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Memoizing decorator for any TextMeasure. The measures are symmetric, so a pair is cached once
+// regardless of argument order. The cache is split into independently locked LRU segments, which keeps
+// it bounded and lets parallel evaluation threads share one instance.
+public class CachingTextMeasure extends ForwardingTextMeasure {
+
+    private static final int DEFAULT_MAXIMUM_SIZE = 100_000;
+    private static final int SEGMENT_COUNT = 16;
+
+    private final Segment[] segments;
+    private final int maximumSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachingTextMeasure(TextMeasure delegate) {
+        this(delegate, DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public CachingTextMeasure(TextMeasure delegate, int maximumSize) {
+        super(delegate);
+        if (maximumSize < SEGMENT_COUNT) {
+            throw new IllegalArgumentException("Cache size must be at least " + SEGMENT_COUNT + ": " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(maximumSize / SEGMENT_COUNT);
+        }
+    }
+
+    @Override
+    public double calculate(List<String> list1, List<String> list2) {
+        if (list1 == null || list2 == null) {
+            return delegate.calculate(list1, list2);
+        }
+        boolean swap = compare(list1, list2) > 0;
+        List<String> first = swap ? list2 : list1;
+        List<String> second = swap ? list1 : list2;
+
+        Object key = new ListPair(first, second);
+        Double cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        double similarity = delegate.calculate(list1, list2);
+        store(new ListPair(List.copyOf(first), List.copyOf(second)), similarity);
+        return similarity;
+    }
+
+    @Override
+    public double calculate(String str1, String str2) {
+        if (str1 == null || str2 == null) {
+            return delegate.calculate(str1, str2);
+        }
+        Object key = str1.compareTo(str2) <= 0 ? new StringPair(str1, str2) : new StringPair(str2, str1);
+        Double cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        double similarity = delegate.calculate(str1, str2);
+        store(key, similarity);
+        return similarity;
+    }
+
+    @Override
+    public double calculate(Vocabulary vocabulary, int id1, int id2) {
+        Object key = new IdPair(vocabulary, Math.min(id1, id2), Math.max(id1, id2));
+        Double cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        double similarity = delegate.calculate(vocabulary, id1, id2);
+        store(key, similarity);
+        return similarity;
+    }
+
+    // Exact values are cached, which the bounded form always allows
+    @Override
+    public double calculate(Vocabulary vocabulary, int id1, int id2, double minSimilarity) {
+        return calculate(vocabulary, id1, id2);
+    }
+
+    // Id sets are cached in the order given, so a hit returns exactly what the call would
+    @Override
+    public double calculate(Vocabulary vocabulary, int[] ids1, int[] ids2) {
+        IdSetPair key = new IdSetPair(vocabulary, ids1, ids2);
+        Double cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        double similarity = delegate.calculate(vocabulary, ids1, ids2);
+        store(key.copy(), similarity);
+        return similarity;
+    }
+
+    // A cached similarity is exact, which the bounded form always allows. A bounded result is stored only when
+    // it reaches minSimilarity: below it the delegate may have stopped early.
+    @Override
+    public double calculate(Vocabulary vocabulary, int[] ids1, int[] ids2, double minSimilarity) {
+        IdSetPair key = new IdSetPair(vocabulary, ids1, ids2);
+        Double cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        double similarity = delegate.calculate(vocabulary, ids1, ids2, minSimilarity);
+        if (similarity >= minSimilarity) {
+            store(key.copy(), similarity);
+        }
+        return similarity;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName() + " (cached)";
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s cache: %d/%d entries, hit rate %.4f (%d hits, %d misses, %d evictions)",
+                delegate.getName(), size(), maximumSize, getHitRate(),
+                getHits(), getMisses(), getEvictions());
+    }
+
+    private Double lookup(Object key) {
+        Segment segment = segmentFor(key);
+        Double cached;
+        synchronized (segment) {
+            cached = segment.get(key);
+        }
+        if (cached != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return cached;
+    }
+
+    private void store(Object key, double similarity) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, similarity);
+        }
+    }
+
+    private Segment segmentFor(Object key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENT_COUNT - 1)];
+    }
+
+    private static int compare(List<String> list1, List<String> list2) {
+        int common = Math.min(list1.size(), list2.size());
+        for (int i = 0; i < common; i++) {
+            int comparison = list1.get(i).compareTo(list2.get(i));
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return Integer.compare(list1.size(), list2.size());
+    }
+
+    private record StringPair(String first, String second) {}
+
+    private record ListPair(List<String> first, List<String> second) {}
+
+    private record IdPair(Vocabulary vocabulary, int first, int second) {}
+
+    // Arrays compared by content; the caller's arrays are copied before the key is stored
+    private static final class IdSetPair {
+        private final Vocabulary vocabulary;
+        private final int[] first;
+        private final int[] second;
+        private final int hash;
+
+        IdSetPair(Vocabulary vocabulary, int[] first, int[] second) {
+            this.vocabulary = vocabulary;
+            this.first = first;
+            this.second = second;
+            this.hash = 31 * (31 * System.identityHashCode(vocabulary) + Arrays.hashCode(first)) + Arrays.hashCode(second);
+        }
+
+        IdSetPair copy() {
+            return new IdSetPair(vocabulary, first.clone(), second.clone());
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof IdSetPair pair && vocabulary == pair.vocabulary
+                    && Arrays.equals(first, pair.first) && Arrays.equals(second, pair.second);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    // Access-ordered map that drops its least recently used entry once it is full
+    private final class Segment extends LinkedHashMap<Object, Double> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Double> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
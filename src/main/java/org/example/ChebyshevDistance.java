@@ -1,18 +1,37 @@
 package org.example;
 
-import java.util.List;
-
 public class ChebyshevDistance implements DistanceMetric {
 
+    // State: largest absolute value so far
+    @Override
+    public double accumulate(double state, double distance) {
+        double abs = distance < 0 ? -distance : distance;
+        return abs > state ? abs : state;
+    }
+
+    @Override
+    public double finish(double state) {
+        return state;
+    }
+
+    @Override
+    public void accumulateBlock(NumericKernels kernels, double[] states, double query, double[] column, int from,
+                                int to) {
+        kernels.maxOfAbs(states, query, column, from, to);
+    }
+
+    @Override
+    public boolean isMonotone() {
+        return true;
+    }
+
+    @Override
+    public boolean isMetric() {
+        return true;
+    }
+
     @Override
-    public double aggregate(List<Double> distances) {
-        double max = 0.0;
-        for (double d : distances) {
-            double abs = d < 0 ? -d : d;
-            if (abs > max) {
-                max = abs;
-            }
-        }
-        return max;
+    public double featureBudget(double state, double bound) {
+        return bound;
     }
 }
@@ -2,74 +2,48 @@ package org.example;
 
 import java.util.*;
 
-public class CosineTextMeasure implements TextMeasure {
+// Cosine similarity of frequency vectors: characters for single values, lower-cased words for lists.
+// Encoded documents carry their vectors precomputed (see SparseVector), so comparing them is one merge-join.
+public class CosineTextMeasure implements TermVectorMeasure {
 
     // Method to calculate cosine similarity for two lists of words
     @Override
     public double calculate(List<String> list1, List<String> list2) {
-        Map<String, Integer> freqMap1 = getWordFrequencyMap(list1);
-        Map<String, Integer> freqMap2 = getWordFrequencyMap(list2);
-
-        Set<String> allWords = new HashSet<>(freqMap1.keySet());
-        allWords.addAll(freqMap2.keySet());
-
-        // dot product
-        double dotProduct = 0.0;
-        for (String word : allWords) {
-            int freq1 = freqMap1.getOrDefault(word, 0);
-            int freq2 = freqMap2.getOrDefault(word, 0);
-            dotProduct += freq1 * freq2;
-        }
-
-        // magnitudes
-        double magnitude1 = Math.sqrt(freqMap1.values().stream().mapToDouble(f -> f * f).sum());
-        double magnitude2 = Math.sqrt(freqMap2.values().stream().mapToDouble(f -> f * f).sum());
-
-        if (magnitude1 == 0 || magnitude2 == 0) {
-            return 0;
-        }
-        return dotProduct / (magnitude1 * magnitude2);
+        Map<String, Integer> termIds = new HashMap<>();
+        return getWordVector(list1, termIds).cosine(getWordVector(list2, termIds));
     }
 
-
     public double calculate(String list1, String list2) {
-        Map<Character, Integer> freqMap1 = getCharacterFrequencyMap(list1);
-        Map<Character, Integer> freqMap2 = getCharacterFrequencyMap(list2);
-
-        Set<Character> allChars = new HashSet<>(freqMap1.keySet());
-        allChars.addAll(freqMap2.keySet());
-
-        double dotProduct = 0.0;
-        for (Character c : allChars) {
-            int freq1 = freqMap1.getOrDefault(c, 0);
-            int freq2 = freqMap2.getOrDefault(c, 0);
-            dotProduct += freq1 * freq2;
-        }
+        return SparseVector.ofChars(list1).cosine(SparseVector.ofChars(list2));
+    }
 
-        double magnitude1 = Math.sqrt(freqMap1.values().stream().mapToDouble(f -> f * f).sum());
-        double magnitude2 = Math.sqrt(freqMap2.values().stream().mapToDouble(f -> f * f).sum());
+    @Override
+    public double calculate(Vocabulary vocabulary, int id1, int id2) {
+        return vocabulary.charVector(id1).cosine(vocabulary.charVector(id2));
+    }
 
-        if (magnitude1 == 0 || magnitude2 == 0) {
-            return 0;
-        }
-        return dotProduct / (magnitude1 * magnitude2);
+    @Override
+    public double calculate(Vocabulary vocabulary, int[] ids1, int[] ids2) {
+        return vocabulary.termVector(ids1).cosine(vocabulary.termVector(ids2));
     }
 
-    private Map<Character, Integer> getCharacterFrequencyMap(String str) {
-        Map<Character, Integer> freqMap = new HashMap<>();
-        for (char c : str.toCharArray()) {
-            freqMap.put(c, freqMap.getOrDefault(c, 0) + 1);
-        }
-        return freqMap;
+    @Override
+    public double calculate(SparseVector terms1, SparseVector terms2) {
+        return terms1.cosine(terms2);
     }
 
-    private Map<String, Integer> getWordFrequencyMap(List<String> words) {
-        Map<String, Integer> freqMap = new HashMap<>();
-        for (String word : words) {
-            word = word.toLowerCase(); // Case-insensitive comparison
-            freqMap.put(word, freqMap.getOrDefault(word, 0) + 1);
+    private SparseVector getWordVector(List<String> words, Map<String, Integer> termIds) {
+        int[] terms = new int[words.size()];
+        for (int i = 0; i < terms.length; i++) {
+            String word = words.get(i).toLowerCase(); // Case-insensitive comparison
+            terms[i] = termIds.computeIfAbsent(word, w -> termIds.size());
         }
-        return freqMap;
+        return SparseVector.countOf(terms);
     }
 
-}
\ No newline at end of file
+    // No common (lower-cased) term: the dot product is 0
+    @Override
+    public double disjointSimilarity() {
+        return 0.0;
+    }
+}
@@ -0,0 +1,321 @@
+package org.example;
+
+import java.util.*;
+
+// Aho-Corasick automaton over several dictionaries at once: a single pass over a text finds every occurrence
+// of every entry of every dictionary, each match tagged with the dictionary it belongs to. Matching ignores
+// case, entries are expected in lower case (as DictionaryRegistry stores them). The trie is compiled into a
+// full transition table over the characters that occur in the entries, so each text character costs one
+// array lookup. Every whitespace character is read as a space, so text is expected with its whitespace
+// normalised, as jsoup's Element.text() returns it.
+//
+// Each dictionary has its own Boundary. With NONE any occurrence counts, as with String.contains. With WORD an
+// occurrence must start and end at whitespace or at the ends of the text, like a run of tokens of
+// split("\\s+"); hyphens and spaces inside an entry are interchangeable, so "american-samoa" also matches
+// "American Samoa" and "buenos aires" "Buenos-Aires". Overlapping word matches of one dictionary are resolved
+// leftmost-longest ("West Germany" is west-germany, not germany); dictionaries never affect each other.
+public final class DictionaryMatcher {
+
+    public enum Boundary { NONE, WORD }
+
+    // One occurrence: text[start, end) matched entry
+    public static final class Match {
+        private final int start;
+        private final int end;
+        private final int index;
+        private final String entry;
+        private final String text;
+
+        private Match(int start, int end, int index, String entry, String text) {
+            this.start = start;
+            this.end = end;
+            this.index = index;
+            this.entry = entry;
+            this.text = text;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        // The dictionary entry, e.g. "ico-coffee"
+        public String getEntry() {
+            return entry;
+        }
+
+        // The matched text as written, e.g. "ICO-COFFEE"
+        public String getText() {
+            return text.substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return "[" + start + ", " + end + ") " + getText() + " -> " + entry;
+        }
+    }
+
+    // Matches of one text, by dictionary
+    public final class Matches {
+        private final List<List<Match>> byDictionary;
+
+        private Matches(List<List<Match>> byDictionary) {
+            this.byDictionary = byDictionary;
+        }
+
+        // Occurrences ordered by start; with word boundaries they do not overlap
+        public List<Match> get(String dictionary) {
+            return byDictionary.get(indexOf(dictionary));
+        }
+
+        // Distinct entries that occur, in dictionary order
+        public List<String> entries(String dictionary) {
+            int index = indexOf(dictionary);
+            List<String> dictionaryEntries = entries.get(index);
+            boolean[] found = new boolean[dictionaryEntries.size()];
+            for (Match match : byDictionary.get(index)) {
+                found[match.index] = true;
+            }
+            List<String> result = new ArrayList<>();
+            for (int i = 0; i < found.length; i++) {
+                if (found[i]) {
+                    result.add(dictionaryEntries.get(i));
+                }
+            }
+            return result;
+        }
+    }
+
+    private static final int ROOT = 0;
+    private static final char SEPARATOR = ' ';
+
+    private final List<String> names;
+    private final List<List<String>> entries;
+    private final Boundary[] boundaries;
+    // Per pattern (entry, or spelling variant of a word entry): its dictionary, entry index and length
+    private final int[] patternDictionaries;
+    private final int[] patternEntries;
+    private final int[] patternLengths;
+    // Column of a character in the transition table, -1 for characters of no entry
+    private final int[] asciiColumns = new int[128];
+    private final Map<Character, Integer> otherColumns = new HashMap<>();
+    private final int columns;
+    // state * columns + column -> next state, failure links already followed
+    private final int[] transitions;
+    // Patterns ending in a state, its own and those of its failure chain
+    private final int[][] outputs;
+
+    // Dictionaries in iteration order; boundaries must name a Boundary for each of them
+    public DictionaryMatcher(Map<String, ? extends Collection<String>> dictionaries, Map<String, Boundary> boundaries) {
+        this.names = List.copyOf(dictionaries.keySet());
+        this.entries = new ArrayList<>();
+        this.boundaries = new Boundary[names.size()];
+
+        List<String> patterns = new ArrayList<>();
+        List<int[]> owners = new ArrayList<>();
+        for (int d = 0; d < names.size(); d++) {
+            String name = names.get(d);
+            Boundary boundary = boundaries.get(name);
+            if (boundary == null) {
+                throw new IllegalArgumentException("No boundary for dictionary " + name);
+            }
+            this.boundaries[d] = boundary;
+            List<String> dictionaryEntries = List.copyOf(dictionaries.get(name));
+            entries.add(dictionaryEntries);
+            for (int e = 0; e < dictionaryEntries.size(); e++) {
+                String entry = dictionaryEntries.get(e);
+                if (entry.isEmpty()) {
+                    throw new IllegalArgumentException("Empty entry in dictionary " + name);
+                }
+                for (String pattern : boundary == Boundary.WORD ? spellings(fold(entry)) : List.of(fold(entry))) {
+                    patterns.add(pattern);
+                    owners.add(new int[]{d, e});
+                }
+            }
+        }
+
+        int count = patterns.size();
+        this.patternDictionaries = new int[count];
+        this.patternEntries = new int[count];
+        this.patternLengths = new int[count];
+        Arrays.fill(asciiColumns, -1);
+        int columnCount = 0;
+        int maxStates = 1;
+        for (int p = 0; p < count; p++) {
+            String pattern = patterns.get(p);
+            patternDictionaries[p] = owners.get(p)[0];
+            patternEntries[p] = owners.get(p)[1];
+            patternLengths[p] = pattern.length();
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (column(c) < 0) {
+                    if (c < 128) {
+                        asciiColumns[c] = columnCount++;
+                    } else {
+                        otherColumns.put(c, columnCount++);
+                    }
+                }
+            }
+            maxStates += pattern.length();
+        }
+        this.columns = columnCount;
+
+        // Trie of the patterns, -1 for missing edges
+        int[] table = new int[maxStates * columns];
+        Arrays.fill(table, -1);
+        List<List<Integer>> ownOutputs = new ArrayList<>();
+        ownOutputs.add(new ArrayList<>());
+        int states = 1;
+        for (int p = 0; p < count; p++) {
+            String pattern = patterns.get(p);
+            int state = ROOT;
+            for (int i = 0; i < pattern.length(); i++) {
+                int edge = state * columns + column(pattern.charAt(i));
+                if (table[edge] < 0) {
+                    table[edge] = states++;
+                    ownOutputs.add(new ArrayList<>());
+                }
+                state = table[edge];
+            }
+            ownOutputs.get(state).add(p);
+        }
+
+        // Breadth-first: failure links, and missing edges redirected to where the failure link leads
+        int[] failure = new int[states];
+        int[][] stateOutputs = new int[states][];
+        stateOutputs[ROOT] = new int[0];
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(ROOT);
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int column = 0; column < columns; column++) {
+                int edge = state * columns + column;
+                int fallback = state == ROOT ? ROOT : table[failure[state] * columns + column];
+                int next = table[edge];
+                if (next < 0) {
+                    table[edge] = fallback;
+                } else {
+                    failure[next] = fallback;
+                    List<Integer> own = ownOutputs.get(next);
+                    int[] inherited = stateOutputs[fallback];
+                    int[] merged = new int[own.size() + inherited.length];
+                    for (int i = 0; i < own.size(); i++) {
+                        merged[i] = own.get(i);
+                    }
+                    System.arraycopy(inherited, 0, merged, own.size(), inherited.length);
+                    stateOutputs[next] = merged;
+                    queue.add(next);
+                }
+            }
+        }
+        this.transitions = Arrays.copyOf(table, states * columns);
+        this.outputs = stateOutputs;
+    }
+
+    public Matches findAll(String text) {
+        List<List<Match>> found = new ArrayList<>(names.size());
+        for (int d = 0; d < names.size(); d++) {
+            found.add(new ArrayList<>());
+        }
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            int column = column(fold(text.charAt(i)));
+            state = column < 0 ? ROOT : transitions[state * columns + column];
+            for (int pattern : outputs[state]) {
+                int dictionary = patternDictionaries[pattern];
+                int start = i + 1 - patternLengths[pattern];
+                if (boundaries[dictionary] == Boundary.NONE || (isWordStart(text, start) && isWordEnd(text, i + 1))) {
+                    int entry = patternEntries[pattern];
+                    found.get(dictionary).add(new Match(start, i + 1, entry, entries.get(dictionary).get(entry), text));
+                }
+            }
+        }
+
+        for (int d = 0; d < names.size(); d++) {
+            List<Match> matches = found.get(d);
+            // Found by end position; order by start, longer first
+            matches.sort(Comparator.comparingInt(Match::getStart).thenComparing(Comparator.comparingInt(Match::getEnd).reversed()));
+            if (boundaries[d] == Boundary.WORD) {
+                List<Match> words = new ArrayList<>();
+                int end = 0;
+                for (Match match : matches) {
+                    if (match.start >= end) {
+                        words.add(match);
+                        end = match.end;
+                    }
+                }
+                found.set(d, words);
+            }
+        }
+        return new Matches(found);
+    }
+
+    public Boundary getBoundary(String dictionary) {
+        return boundaries[indexOf(dictionary)];
+    }
+
+    // Number of entries of a dictionary
+    public int size(String dictionary) {
+        return entries.get(indexOf(dictionary)).size();
+    }
+
+    private int indexOf(String dictionary) {
+        int index = names.indexOf(dictionary);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown dictionary: " + dictionary + ", expected one of " + names);
+        }
+        return index;
+    }
+
+    private int column(char c) {
+        return c < 128 ? asciiColumns[c] : otherColumns.getOrDefault(c, -1);
+    }
+
+    // Every way of writing the separators of a word entry as hyphen or space
+    private static List<String> spellings(String entry) {
+        List<String> spellings = new ArrayList<>(List.of(""));
+        for (int i = 0; i < entry.length(); i++) {
+            char c = entry.charAt(i);
+            List<String> extended = new ArrayList<>();
+            for (String prefix : spellings) {
+                if (c == '-' || c == SEPARATOR) {
+                    extended.add(prefix + '-');
+                    extended.add(prefix + SEPARATOR);
+                } else {
+                    extended.add(prefix + c);
+                }
+            }
+            spellings = extended;
+        }
+        return spellings;
+    }
+
+    private static String fold(String text) {
+        StringBuilder folded = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            folded.append(fold(text.charAt(i)));
+        }
+        return folded.toString();
+    }
+
+    private static char fold(char c) {
+        return TokenizedText.isWhitespace(c) ? SEPARATOR : Character.toLowerCase(c);
+    }
+
+    private static boolean isWordStart(String text, int start) {
+        return start == 0 || TokenizedText.isWhitespace(text.charAt(start - 1));
+    }
+
+    private static boolean isWordEnd(String text, int end) {
+        return end == text.length() || TokenizedText.isWhitespace(text.charAt(end));
+    }
+
+    @Override
+    public String toString() {
+        return "DictionaryMatcher{dictionaries=" + names + ", patterns=" + patternLengths.length + ", states="
+                + outputs.length + "}";
+    }
+}
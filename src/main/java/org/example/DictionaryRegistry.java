@@ -0,0 +1,74 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+// Word lists of the feature extraction (people, orgs, places, capitals, currencies), read once from the
+// classpath. Entries are trimmed, lower-cased and de-duplicated; blank lines are dropped. All dictionaries are
+// compiled into one DictionaryMatcher, so a text is scanned once for every category: currencies match anywhere
+// in it, the other categories as whole words. The matcher is immutable and shared by all loader threads.
+public final class DictionaryRegistry {
+
+    public static final List<String> CATEGORIES = List.of("people", "orgs", "places", "capitals", "currencies");
+
+    private final DictionaryMatcher matcher;
+
+    private DictionaryRegistry(DictionaryMatcher matcher) {
+        this.matcher = matcher;
+    }
+
+    private static final class Holder {
+        private static final DictionaryRegistry SHARED = load(DictionaryRegistry.class.getClassLoader());
+    }
+
+    // Registry of the application's classpath, loaded on first use
+    public static DictionaryRegistry shared() {
+        return Holder.SHARED;
+    }
+
+    public static DictionaryRegistry load(ClassLoader classLoader) {
+        Map<String, Set<String>> dictionaries = new LinkedHashMap<>();
+        Map<String, DictionaryMatcher.Boundary> boundaries = new HashMap<>();
+        for (String category : CATEGORIES) {
+            dictionaries.put(category, read(classLoader, category));
+            boundaries.put(category, category.equals("currencies") ? DictionaryMatcher.Boundary.NONE : DictionaryMatcher.Boundary.WORD);
+        }
+        return new DictionaryRegistry(new DictionaryMatcher(dictionaries, boundaries));
+    }
+
+    // Entries in file order
+    private static Set<String> read(ClassLoader classLoader, String category) {
+        InputStream input = classLoader.getResourceAsStream(category + ".txt");
+        if (input == null) {
+            throw new IllegalArgumentException("Dictionary not found on the classpath: " + category + ".txt");
+        }
+        Set<String> entries = new LinkedHashSet<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            reader.lines()
+                    .map(line -> line.trim().toLowerCase())
+                    .filter(entry -> !entry.isEmpty())
+                    .forEach(entries::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading dictionary " + category + ".txt", e);
+        }
+        return entries;
+    }
+
+    public DictionaryMatcher getMatcher() {
+        return matcher;
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner description = new StringJoiner(", ", "DictionaryRegistry{", "}");
+        for (String category : CATEGORIES) {
+            description.add(category + "=" + matcher.size(category));
+        }
+        return description.toString();
+    }
+}
@@ -0,0 +1,90 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Distances of one feature between every test document (rows) and every training row (columns), as floats.
+// Small matrices live in a heap array; larger ones in a memory-mapped temporary file, split into mappings of
+// whole rows below 2 GB each, so the page cache rather than the heap holds them.
+public final class DistanceMatrix {
+
+    private final int rows;
+    private final int columns;
+    private final float[] heap;
+    private final FloatBuffer[] mapped;
+    private final int rowsPerMapping;
+
+    private DistanceMatrix(int rows, int columns, float[] heap, FloatBuffer[] mapped, int rowsPerMapping) {
+        this.rows = rows;
+        this.columns = columns;
+        this.heap = heap;
+        this.mapped = mapped;
+        this.rowsPerMapping = rowsPerMapping;
+    }
+
+    public static DistanceMatrix onHeap(int rows, int columns) {
+        return new DistanceMatrix(rows, columns, new float[Math.multiplyExact(rows, columns)], null, rows);
+    }
+
+    // Backed by a temporary file in directory, deleted when the JVM exits
+    public static DistanceMatrix mapped(int rows, int columns, Path directory) {
+        int rowsPerMapping = Math.max(1, Integer.MAX_VALUE / Float.BYTES / Math.max(columns, 1));
+        FloatBuffer[] mappings = new FloatBuffer[(rows + rowsPerMapping - 1) / rowsPerMapping];
+        try {
+            Path file = Files.createTempFile(directory, "distances", ".bin");
+            file.toFile().deleteOnExit();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                for (int i = 0; i < mappings.length; i++) {
+                    long first = (long) i * rowsPerMapping;
+                    long bytes = Math.min(rowsPerMapping, rows - first) * columns * Float.BYTES;
+                    // The mapping stays valid after the channel is closed
+                    mappings[i] = channel.map(FileChannel.MapMode.READ_WRITE, first * columns * Float.BYTES, bytes)
+                            .order(ByteOrder.nativeOrder())
+                            .asFloatBuffer();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map a " + rows + " x " + columns + " distance matrix", e);
+        }
+        return new DistanceMatrix(rows, columns, null, mappings, rowsPerMapping);
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int columns() {
+        return columns;
+    }
+
+    public boolean isMapped() {
+        return mapped != null;
+    }
+
+    public long bytes() {
+        return (long) rows * columns * Float.BYTES;
+    }
+
+    // Stores the distances of one test document; rows may be written concurrently
+    public void setRow(int row, float[] distances) {
+        if (heap != null) {
+            System.arraycopy(distances, 0, heap, row * columns, columns);
+        } else {
+            mapped[row / rowsPerMapping].put((row % rowsPerMapping) * columns, distances, 0, columns);
+        }
+    }
+
+    public void getRow(int row, float[] distances) {
+        if (heap != null) {
+            System.arraycopy(heap, row * columns, distances, 0, columns);
+        } else {
+            mapped[row / rowsPerMapping].get((row % rowsPerMapping) * columns, distances, 0, columns);
+        }
+    }
+}
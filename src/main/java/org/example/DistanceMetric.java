@@ -3,55 +3,188 @@ package org.example;
 import java.util.List;
 import java.util.Set;
 
+// Aggregates per-feature distances as a stream: every distance is folded into a primitive state
+// (starting from 0.0) with accumulate, and finish turns the final state into the distance.
 public interface DistanceMetric {
-    double aggregate(List<Double> distances);
+    double accumulate(double state, double distance);
+
+    double finish(double state);
+
+    default double aggregate(List<Double> distances) {
+        double state = 0.0;
+        for (double d : distances) {
+            state = accumulate(state, d);
+        }
+        return finish(state);
+    }
 
     default double calculate(Document doc1, Document doc2, TextMeasure textMeasure, Set<Integer> selectedFeatureIndices) {
         FeatureVector vec1 = doc1.getFeatures();
         FeatureVector vec2 = doc2.getFeatures();
-        List<Double> distances = new java.util.ArrayList<>();
+        FeatureDictionary dictionary = vec1.getDictionary();
+        boolean encoded = dictionary != null && dictionary == vec2.getDictionary();
+        double state = 0.0;
 
         for (Integer index : selectedFeatureIndices) {
             switch (index) {
-                case 0:
-                    distances.add(1.0 - textMeasure.calculate(vec1.getFirstName0(), vec2.getFirstName0()));
-                    break;
-                case 1:
-                    distances.add(1.0 - textMeasure.calculate(
-                            vec1.getOrganisations1(), vec2.getOrganisations1()
-                    ));
-                    break;
-                case 2:
-                    distances.add(1.0 - textMeasure.calculate(vec1.getPopularCountry2(), vec2.getPopularCountry2()));
+                case 0, 2, 3, 4, 6, 7:
+                    state = accumulate(state, 1.0 - (encoded
+                            ? textMeasure.calculate(dictionary.vocabulary(index), vec1.getCategoryId(index), vec2.getCategoryId(index))
+                            : textMeasure.calculate(vec1.getCategory(index), vec2.getCategory(index))));
                     break;
-                case 3:
-                    distances.add(1.0 - textMeasure.calculate(vec1.getFirstCity3(), vec2.getFirstCity3()));
-                    break;
-                case 4:
-                    distances.add(1.0 - textMeasure.calculate(vec1.getPopularTopic4(),vec2.getPopularTopic4()));
-                    break;
-                case 5:
-                    distances.add(1.0 - textMeasure.calculate(
-                            vec1.getCurrency5(), vec2.getCurrency5()
-                    ));
-                    break;
-                case 6:
-                    distances.add(1.0 - textMeasure.calculate(vec1.getAuthor6(),vec2.getAuthor6()));
-                    break;
-                case 7:
-                    distances.add(1.0 - textMeasure.calculate(vec1.getLocalisation7(),vec2.getLocalisation7()));
+                case 1, 5:
+                    if (encoded && textMeasure.usesTermVectors()) {
+                        state = accumulate(state, 1.0 - termVectorSimilarity(textMeasure, vec1.getTermVector(index), vec2.getTermVector(index)));
+                        break;
+                    }
+                    state = accumulate(state, 1.0 - (encoded
+                            ? textMeasure.calculate(dictionary.vocabulary(index), vec1.getCategoryIds(index), vec2.getCategoryIds(index))
+                            : textMeasure.calculate(vec1.getCategories(index), vec2.getCategories(index))));
                     break;
                 case 8:
-                    distances.add((double) (vec1.getDayOfWeek8() - vec2.getDayOfWeek8()));
+                    state = accumulate(state, vec1.getDayOfWeek8() - vec2.getDayOfWeek8());
                     break;
                 case 9:
-                    distances.add((double) (vec1.getWordCount9() - vec2.getWordCount9()));
+                    state = accumulate(state, vec1.getWordCount9() - vec2.getWordCount9());
                     break;
                 default:
                     throw new IllegalArgumentException("Unknown feature index: " + index);
             }
         }
 
-        return aggregate(distances);
+        return finish(state);
+    }
+
+    // Whether accumulate never decreases the state and finish preserves order: a partial distance
+    // is then a lower bound of the full one, which lets calculate stop early
+    default boolean isMonotone() {
+        return false;
+    }
+
+    // Folds the numeric feature distances query - column[row] of rows [from, to) into states[0 .. to - from), as
+    // accumulate does one row at a time. Metrics override it with the given block kernels.
+    default void accumulateBlock(NumericKernels kernels, double[] states, double query, double[] column, int from, int to) {
+        for (int i = 0, row = from; row < to; i++, row++) {
+            states[i] = accumulate(states[i], query - column[row]);
+        }
+    }
+
+    // Whether the distance is a metric whenever every per-feature distance is one, as Minkowski
+    // combinations of per-feature distances are
+    default boolean isMetric() {
+        return false;
+    }
+
+    // Distance between a query and one row of a training store
+    default double calculate(FeatureVector query, TrainingStore store, int row, TextMeasure textMeasure, int[] featureIndices) {
+        return calculate(query, store, row, textMeasure, featureIndices, Double.POSITIVE_INFINITY);
+    }
+
+    // Same, but a monotone metric abandons the row as soon as the partial distance exceeds bound (e.g. the
+    // current k-th nearest distance). The returned value is then only guaranteed to be greater than bound.
+    default double calculate(FeatureVector query, TrainingStore store, int row, TextMeasure textMeasure,
+                             int[] featureIndices, double bound) {
+        return calculate(query, store, row, textMeasure, featureIndices, bound, null);
+    }
+
+    // Same, with the distances of some features already known for every row (e.g. filled by an InvertedIndex):
+    // knownDistances[index][row] is used where knownDistances[index] is not null
+    default double calculate(FeatureVector query, TrainingStore store, int row, TextMeasure textMeasure,
+                             int[] featureIndices, double bound, double[][] knownDistances) {
+        return calculate(query, store, row, textMeasure, featureIndices, 0, 0.0, bound, knownDistances);
+    }
+
+    // Same, continuing from the state of featureIndices[0 .. first) (e.g. numeric features folded per block)
+    default double calculate(FeatureVector query, TrainingStore store, int row, TextMeasure textMeasure,
+                             int[] featureIndices, int first, double state, double bound, double[][] knownDistances) {
+        boolean prune = bound != Double.POSITIVE_INFINITY && isMonotone();
+        if (prune && first > 0) {
+            double partial = finish(state);
+            if (partial > bound) {
+                return partial;
+            }
+        }
+
+        for (int i = first; i < featureIndices.length; i++) {
+            int index = featureIndices[i];
+            double[] known = knownDistances == null ? null : knownDistances[index];
+            if (known != null || !prune) {
+                state = accumulate(state, known != null ? known[row] : featureDistance(query, store, row, textMeasure, index));
+                if (prune) {
+                    double partial = finish(state);
+                    if (partial > bound) {
+                        return partial;
+                    }
+                }
+                continue;
+            }
+
+            // Text measures may stop early once the similarity drops below what the bound still allows
+            double minSimilarity = 1.0 - featureBudget(state, bound);
+            double distance = featureDistance(query, store, row, textMeasure, index, minSimilarity);
+            double next = accumulate(state, distance);
+            double partial = finish(next);
+            if (partial > bound) {
+                return partial;
+            }
+            if (distance >= 1.0 - Math.nextDown(minSimilarity)) {
+                // Possibly cut short yet within bound: only a lower bound, so compute it exactly
+                next = accumulate(state, featureDistance(query, store, row, textMeasure, index));
+            }
+            state = next;
+        }
+
+        return finish(state);
+    }
+
+    // Estimate of the largest distance one more feature may add to state without the distance exceeding bound.
+    // Only used by monotone metrics to bound text measures; calculate stays exact whatever it returns.
+    default double featureBudget(double state, double bound) {
+        return Double.POSITIVE_INFINITY;
+    }
+
+    // Signed distance of a single feature between a query and a store row. Queries encoded with the store's
+    // dictionary are compared by id, others by their text values.
+    static double featureDistance(FeatureVector query, TrainingStore store, int row, TextMeasure textMeasure, int index) {
+        return featureDistance(query, store, row, textMeasure, index, Double.NEGATIVE_INFINITY);
+    }
+
+    // Same, with encoded text features compared by the bounded text measure forms: a similarity below
+    // minSimilarity may be cut short, so the distance is then only a lower bound
+    static double featureDistance(FeatureVector query, TrainingStore store, int row, TextMeasure textMeasure,
+                                  int index, double minSimilarity) {
+        FeatureDictionary dictionary = store.getDictionary();
+        boolean encoded = query.getDictionary() == dictionary;
+
+        switch (index) {
+            case 0, 2, 3, 4, 6, 7: {
+                Vocabulary vocabulary = dictionary.vocabulary(index);
+                int rowId = store.getCategoryColumn(index)[row];
+                return 1.0 - (encoded
+                        ? textMeasure.calculate(vocabulary, query.getCategoryId(index), rowId, minSimilarity)
+                        : textMeasure.calculate(query.getCategory(index), vocabulary.valueOf(rowId)));
+            }
+            case 1, 5: {
+                Vocabulary vocabulary = dictionary.vocabulary(index);
+                if (encoded && textMeasure.usesTermVectors()) {
+                    return 1.0 - termVectorSimilarity(textMeasure, query.getTermVector(index), store.getTermVectorColumn(index)[row]);
+                }
+                int[] rowIds = store.getCategorySetColumn(index)[row];
+                return 1.0 - (encoded
+                        ? textMeasure.calculate(vocabulary, query.getCategoryIds(index), rowIds, minSimilarity)
+                        : textMeasure.calculate(query.getCategories(index), vocabulary.valuesOf(rowIds)));
+            }
+            case 8:
+                return query.getDayOfWeek8() - store.getNumericColumn(8)[row];
+            case 9:
+                return query.getWordCount9() - store.getNumericColumn(9)[row];
+            default:
+                throw new IllegalArgumentException("Unknown feature index: " + index);
+        }
+    }
+
+    // Only for measures whose usesTermVectors is true
+    private static double termVectorSimilarity(TextMeasure textMeasure, SparseVector terms1, SparseVector terms2) {
+        return ((TermVectorMeasure) textMeasure.getBaseMeasure()).calculate(terms1, terms2);
     }
 }
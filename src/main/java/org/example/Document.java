@@ -8,8 +8,6 @@ public class Document{
     private FeatureVector features;
     private String targetLabel;
 
-    private String predictedLabel;
-
     public Document(String documentId, FeatureVector features, String targetLabel) {
         this.documentId = documentId;
         this.features = features;
@@ -27,12 +25,4 @@ public class Document{
     public String getTargetLabel() {
         return targetLabel;
     }
-
-    public String getPredictedLabel() {
-        return predictedLabel;
-    }
-
-    public void setPredictedLabel(String predictedLabel) {
-        this.predictedLabel = predictedLabel;
-    }
 }
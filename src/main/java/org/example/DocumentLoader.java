@@ -1,23 +1,48 @@
 package org.example;
 
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.parser.Parser;
-import org.jsoup.select.Elements;
-
 import java.io.*;
-import java.nio.file.Files;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class DocumentLoader {
 
     private Set<Integer> badIds = new HashSet<>();
+    private final DictionaryRegistry dictionaries;
+
+    public DocumentLoader() {
+        this(DictionaryRegistry.shared());
+    }
+
+    public DocumentLoader(DictionaryRegistry dictionaries) {
+        this.dictionaries = dictionaries;
+    }
+
+    // REUTERS records per extraction task
+    private static final int RECORD_CHUNK_SIZE = 64;
+    // Extraction tasks submitted but not yet consumed, across files
+    private static final int MAX_CHUNKS_IN_FLIGHT = 2 * Runtime.getRuntime().availableProcessors();
 
     public List<org.example.Document> loadDocuments(String directoryPath) {
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            return loadDocuments(directoryPath, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Files are streamed on the calling thread and their REUTERS elements parsed and turned into documents
+    // concurrently on the executor, at most MAX_CHUNKS_IN_FLIGHT chunks at a time, so memory does not grow
+    // with the corpus. One queue spans all files, so the next file is read while the chunks of the previous
+    // ones are still being extracted. Documents, console output and bad_ids.txt appends follow file (listFiles)
+    // and record order, as in a sequential load, so the document list and every split drawn from it stay the
+    // same. Records read before an I/O error in a file are kept.
+    public List<org.example.Document> loadDocuments(String directoryPath, ExecutorService executor) {
         List<org.example.Document> documents = new ArrayList<>();
         File directory = new File(directoryPath);
 
@@ -31,82 +56,181 @@ public class DocumentLoader {
 
         loadBadIds();
 
-        // Process each .sgm file
+        List<Integer> newBadIds = new ArrayList<>();
+        ExtractionQueue queue = new ExtractionQueue(executor, documents, newBadIds);
         for (File file : sgmFiles) {
-            try {
-                System.out.println("Processing file: " + file.getName());
-                List<org.example.Document> docsFromFile = extractDocumentsFromFile(file);
-                documents.addAll(docsFromFile);
-                System.out.println("Extracted " + docsFromFile.size() + " documents from " + file.getName());
+            queue.startFile(file.getName());
+            IOException readError = null;
+            List<String> chunk = new ArrayList<>();
+            try (ReutersReader reader = ReutersReader.open(file.toPath())) {
+                for (String element = reader.nextElement(); element != null; element = reader.nextElement()) {
+                    chunk.add(element);
+                    if (chunk.size() == RECORD_CHUNK_SIZE) {
+                        queue.submit(chunk);
+                        chunk = new ArrayList<>();
+                    }
+                }
             } catch (IOException e) {
-                System.err.println("Error processing file " + file.getName() + ": " + e.getMessage());
+                readError = e;
+            }
+            if (!chunk.isEmpty()) {
+                queue.submit(chunk);
             }
+            queue.endFile(file.getName(), readError);
         }
+        queue.drain();
+        for (int id : newBadIds) {
+            appendBadIdResources(id);
+        }
+
+        FeatureDictionary dictionary = FeatureDictionary.of(documents);
+        documents.replaceAll(dictionary::encode);
+        System.out.println("Encoded text features: " + dictionary);
 
         return documents;
     }
 
-    private List<org.example.Document> extractDocumentsFromFile(File file) throws IOException {
-        List<org.example.Document> documents = new ArrayList<>();
+    // Documents of a run of REUTERS records, with the console output and new bad ids they produced
+    private static final class Extraction {
+        final List<org.example.Document> documents = new ArrayList<>();
+        final StringBuilder log = new StringBuilder();
+        final StringBuilder errors = new StringBuilder();
+        final List<Integer> badIds = new ArrayList<>();
+    }
 
-        // Read the file content
-        String content = new String(Files.readAllBytes(file.toPath()));
+    // Extraction tasks of all files, consumed in submission order, with the start and end of every file queued
+    // between them so that its messages come out where a sequential load prints them. Submitting first waits
+    // for the oldest tasks when MAX_CHUNKS_IN_FLIGHT are pending, so reading pauses while the workers catch up;
+    // tasks never wait on each other, so a bounded executor cannot deadlock.
+    private final class ExtractionQueue {
+        private final ExecutorService executor;
+        private final List<org.example.Document> documents;
+        private final List<Integer> badIds;
+        // Futures of Extraction tasks and Runnable file messages, in submission order
+        private final Deque<Object> pending = new ArrayDeque<>();
+        private int tasksInFlight;
+        // Documents of the file whose messages are being consumed
+        private int extracted;
+
+        ExtractionQueue(ExecutorService executor, List<org.example.Document> documents, List<Integer> badIds) {
+            this.executor = executor;
+            this.documents = documents;
+            this.badIds = badIds;
+        }
 
-        content = fixContent(content);
-        Document jsoupDoc = Jsoup.parse(content, "", Parser.xmlParser());
-        Elements reutersElements = jsoupDoc.select("REUTERS");
+        void startFile(String name) {
+            pending.add((Runnable) () -> {
+                System.out.println("Processing file: " + name);
+                extracted = 0;
+            });
+        }
 
-        for (Element reuters : reutersElements) {
+        void endFile(String name, IOException readError) {
+            pending.add((Runnable) () -> {
+                if (readError != null) {
+                    System.err.println("Error processing file " + name + ": " + readError.getMessage());
+                } else {
+                    System.out.println("Extracted " + extracted + " documents from " + name);
+                }
+            });
+        }
+
+        void submit(List<String> elements) {
+            while (tasksInFlight >= MAX_CHUNKS_IN_FLIGHT) {
+                consumeOldest();
+            }
+            pending.add(executor.submit(() -> extractDocuments(elements)));
+            tasksInFlight++;
+        }
+
+        void drain() {
+            while (!pending.isEmpty()) {
+                consumeOldest();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void consumeOldest() {
+            Object next = pending.poll();
+            // Checked first: a submitted task's future is itself a Runnable
+            if (!(next instanceof Future<?> future)) {
+                ((Runnable) next).run();
+                return;
+            }
+            tasksInFlight--;
+            Extraction extraction = awaitExtraction((Future<Extraction>) future);
+            System.out.print(extraction.log);
+            System.err.print(extraction.errors);
+            documents.addAll(extraction.documents);
+            badIds.addAll(extraction.badIds);
+            extracted += extraction.documents.size();
+        }
+    }
+
+    private Extraction extractDocuments(List<String> elements) {
+        Extraction extraction = new Extraction();
+
+        for (String element : elements) {
             try {
-                String docId = reuters.attr("NEWID");
+                ReutersRecord reuters = ReutersReader.parse(element);
+                String docId = reuters.getNewId();
                 int docIdInt = Integer.parseInt(docId);
                 if (checkIfBadId(docIdInt)) {
-                    System.out.println("Skipping bad ID: " + docId);
+                    extraction.log.append("Skipping bad ID: ").append(docId).append(System.lineSeparator());
                     continue;
                 }
 
-                FeatureVector features = extractFeatures(reuters);
+                FeatureVector features = extractFeatures(reuters, extraction.errors);
                 String targetLabel = extractLabel(reuters);
-                System.out.print("Document ID: " + docId + ", Label: " + targetLabel);
+                extraction.log.append("Document ID: ").append(docId).append(", Label: ").append(targetLabel);
                 if (targetLabel.equals("INVALID") | targetLabel.equals("MANY OR NONE")) {
-                    System.out.println(" (Invalid label -- appending bad_ids.txt)");
-                    appendBadIdResources(docIdInt);
+                    extraction.log.append(" (Invalid label -- appending bad_ids.txt)").append(System.lineSeparator());
+                    extraction.badIds.add(docIdInt);
                     continue;
                 }
-                System.out.println(" (Valid label)");
+                extraction.log.append(" (Valid label)").append(System.lineSeparator());
                 org.example.Document doc = new org.example.Document(docId, features, targetLabel);
-                documents.add(doc);
+                extraction.documents.add(doc);
             } catch (Exception e) {
-                System.err.println("Error processing document: " + e.getMessage());
+                extraction.errors.append("Error processing document: ").append(e.getMessage()).append(System.lineSeparator());
             }
         }
 
-        return documents;
+        return extraction;
     }
 
-    private String fixContent(String content) {
-        content = "<ROOT>" + content + "</ROOT>";
-        content = content.replaceAll("&", "&amp;");
-
-        return content;
+    private static Extraction awaitExtraction(Future<Extraction> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Loading failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Loading interrupted", e);
+        }
     }
 
     /**
-     * Extract features from a Reuters element
+     * Extract features from a Reuters record
      */
-    private FeatureVector extractFeatures(Element reuters) {
-        String textBody = reuters.select("BODY").text();
-
-        String firstName = findFirstOccurrenceInBody(textBody, "people");
-        List<String> organizations = findOrganizations(textBody);
-        String firstCity = findFirstOccurrenceInBody(textBody, "capitals");
-        String popularCountry = findMostCommonCountryMentioned(textBody);
-        String popularTopic = findMostCommonTopicMentioned(textBody, reuters);
-        List<String> currencies = extractCurrencies(getText(reuters));
-        String author = reuters.select("AUTHOR").text();
-        String dateline = reuters.select("DATELINE").text().split("\\s+")[0].replace(",", "").toLowerCase();
-        int dayOfWeek = extractDayOfWeek(reuters.select("DATE").text());
-        int wordCount = countWords(textBody);
+    FeatureVector extractFeatures(ReutersRecord reuters, StringBuilder errors) {
+        // The body is tokenized once and scanned once for all dictionaries; every body feature reads those
+        TokenizedText body = TokenizedText.of(reuters.getBody());
+        DictionaryMatcher matcher = dictionaries.getMatcher();
+        DictionaryMatcher.Matches bodyMatches = matcher.findAll(body.getText());
+
+        String firstName = findFirstOccurrence(bodyMatches, "people");
+        List<String> organizations = findOrganizations(bodyMatches);
+        String firstCity = findFirstOccurrence(bodyMatches, "capitals");
+        String popularCountry = findMostCommonCountryMentioned(bodyMatches);
+        String popularTopic = findMostCommonTopicMentioned(body, reuters.getTopics());
+        // Without a body the currencies come from the title
+        DictionaryMatcher.Matches currencyMatches = body.getText().isEmpty() ? matcher.findAll(reuters.getTitle()) : bodyMatches;
+        List<String> currencies = currencyMatches.entries("currencies");
+        String author = reuters.getAuthor();
+        String dateline = TokenizedText.of(reuters.getDateline()).getTokens().get(0).replace(",", "").toLowerCase();
+        int dayOfWeek = extractDayOfWeek(reuters.getDate(), errors);
+        int wordCount = body.wordCount();
 
         return new FeatureVector(
                 firstName,
@@ -122,138 +246,70 @@ public class DocumentLoader {
         );
     }
 
-    private List<String> findOrganizations(String bodyText) {
-        try {
-            String[] dictionary = loadDictionaryOf("orgs");
-
-            return Arrays.stream(bodyText.split("\\s+"))
-                    .filter(word -> Arrays.asList(dictionary).contains(word.toLowerCase()))
-                    .collect(Collectors.toSet()).stream().toList();
-        } catch (Exception e) {
-            System.err.println("Error loading dictionary or processing body: " + e.getMessage());
+    // Distinct organisations of the body, as written
+    private List<String> findOrganizations(DictionaryMatcher.Matches bodyMatches) {
+        Set<String> found = new HashSet<>();
+        for (DictionaryMatcher.Match match : bodyMatches.get("orgs")) {
+            found.add(match.getText());
         }
-
-        return Collections.emptyList();
+        return found.stream().toList();
     }
 
-    private String findMostCommonTopicMentioned(String bodyText, Element reuters) {
-        try {
-            List<Element> topicElements = reuters.select("TOPICS D").stream().toList();
-            List<String> topics = new ArrayList<>();
-            for (Element topic : topicElements) {
-                topics.add(topic.text());
-            }
-
-            List<String> wordList = Arrays.asList(bodyText.split("\\s+"));
-            wordList = wordList.stream().map(String::toLowerCase).collect(Collectors.toList());
-            Map<String, Integer> topicCount = new HashMap<>();
-
-            for (String topic : topics) {
-                int count = Collections.frequency(wordList, topic.toLowerCase());
-                if (count > 0) {
-                    topicCount.put(topic, count);
-                }
+    // Topic of the document's TOPICS mentioned most often in the body; ties go to the topic listed first
+    private String findMostCommonTopicMentioned(TokenizedText body, List<String> topics) {
+        Map<String, Integer> topicCount = new LinkedHashMap<>();
+        for (String name : topics) {
+            int count = body.frequency(name.toLowerCase());
+            if (count > 0) {
+                topicCount.put(name, count);
             }
-            return topicCount.entrySet().stream()
-                    .max(Map.Entry.comparingByValue())
-                    .map(Map.Entry::getKey)
-                    .orElse("");
-        } catch (Exception e) {
-            System.err.println("Error loading dictionary or processing body: " + e.getMessage());
-            return "";
         }
+        return mostFrequent(topicCount);
     }
-    private String findMostCommonCountryMentioned(String bodyText) {
-        try {
-            String[] dictionary = loadDictionaryOf("places");
-            List<String> wordList = Arrays.asList(bodyText.split("\\s+"));
-            wordList = wordList.stream().map(String::toLowerCase).collect(Collectors.toList());
-            Map<String, Integer> countryCount = new HashMap<>();
-
-            for (String place : dictionary) {
-                int count = Collections.frequency(wordList, place.toLowerCase());
-                if (count > 0) {
-                    countryCount.put(place, count);
-                }
-            }
-            return countryCount.entrySet().stream()
-                    .max(Map.Entry.comparingByValue())
-                    .map(Map.Entry::getKey)
-                    .orElse("");
-        } catch (Exception e) {
-            System.err.println("Error loading dictionary or processing body: " + e.getMessage());
-            return "";
+
+    // Place mentioned most often in the body; ties go to the place mentioned first
+    private String findMostCommonCountryMentioned(DictionaryMatcher.Matches bodyMatches) {
+        Map<String, Integer> countryCount = new LinkedHashMap<>();
+        for (DictionaryMatcher.Match match : bodyMatches.get("places")) {
+            countryCount.merge(match.getEntry(), 1, Integer::sum);
         }
+        return mostFrequent(countryCount);
     }
 
-    private String findFirstOccurrenceInBody(String bodyText, String category) {
-        try {
-            // Load the list of strings for comparison
-            String[] dictionary = loadDictionaryOf(category);
-            List<String> wordList = Arrays.asList(bodyText.split("\\s+"));
-            wordList = wordList.stream().map(String::toLowerCase).collect(Collectors.toList());
-            // Find the first occurrence
-            for (String word : wordList) {
-                for (String dictWord : dictionary) {
-                    if (word.equalsIgnoreCase(dictWord)) {
-                        return word;
-                    }
-                }
+    // Key with the highest count, the earliest inserted one among equal counts, or "" if there is none
+    private static String mostFrequent(Map<String, Integer> counts) {
+        String best = "";
+        int bestCount = 0;
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() > bestCount) {
+                best = entry.getKey();
+                bestCount = entry.getValue();
             }
-        } catch (Exception e) {
-            System.err.println("Error loading dictionary or processing body: " + e.getMessage());
         }
-        return "";
+        return best;
     }
 
-    private String extractLabel(Element reuters) {
+    // First entry of the category's dictionary mentioned in the body
+    private String findFirstOccurrence(DictionaryMatcher.Matches bodyMatches, String category) {
+        List<DictionaryMatcher.Match> matches = bodyMatches.get(category);
+        return matches.isEmpty() ? "" : matches.get(0).getEntry();
+    }
+
+    private String extractLabel(ReutersRecord reuters) {
         List<String> validPlaces = Arrays.asList("west-germany", "usa", "france", "uk", "canada", "japan");
-        Elements places = reuters.select("PLACES D");
+        List<String> places = reuters.getPlaces();
         if (places.isEmpty() | places.size() > 1) {
             return "MANY OR NONE";
         }
-        String place = places.first().text();
+        String place = places.get(0);
         if (validPlaces.contains(place.toLowerCase())) {
             return place;
         }
         return "INVALID";
     }
 
-    private String getText(Element reuters) {
-        String bodyText = reuters.select("BODY").text();
-        if (bodyText.isEmpty()) {
-            bodyText = reuters.select("TITLE").text();
-        }
-        return bodyText;
-    }
-
-    private List<String> extractCurrencies(String text) {
-        try {
-            if (text == null || text.isEmpty()) {
-                return Collections.emptyList();
-            }
-
-            List<String> currencies = new ArrayList<>();
-            String lowerText = text.toLowerCase();
-
-
-            String[] currencyDictionary = loadDictionaryOf("currencies");
-
-            for (String currency : currencyDictionary) {
-                if (lowerText.contains(currency)) {
-                    currencies.add(currency);
-                }
-            }
-
-            return currencies;
-        }
-        catch (Exception e) {
-            System.err.println("Error loading currency dictionary: " + e.getMessage());
-            return Collections.emptyList();
-        }
-    }
-
-    private int extractDayOfWeek(String dateText){
+    // Errors go to the extraction's error output, printed in document order
+    private int extractDayOfWeek(String dateText, StringBuilder errors){
         SimpleDateFormat sdf = new SimpleDateFormat("d-MMM-yyyy HH:mm:ss.SS", Locale.ENGLISH);
         sdf.setLenient(true); // Parsing errors otherwise
 
@@ -265,30 +321,11 @@ public class DocumentLoader {
             return calendar.get(Calendar.DAY_OF_WEEK);
         }
         catch (ParseException e) {
-            System.err.println("Error parsing date: " + e.getMessage());
+            errors.append("Error parsing date: ").append(e.getMessage()).append(System.lineSeparator());
             return -1;
         }
     }
 
-    private int countWords(String text) {
-        if (text == null || text.isEmpty()) {
-            return 0;
-        }
-        return text.split("\\s+").length;
-    }
-
-    public String[] loadDictionaryOf(String category) throws Exception {
-        InputStream input = getClass().getClassLoader().getResourceAsStream(category + ".txt");
-        if (input == null) {
-            throw new IllegalArgumentException("File not found");
-        }
-
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input))) {
-            List<String> lines = reader.lines().toList();
-            return lines.toArray(new String[0]);
-        }
-    }
-
     public void loadBadIds() {
         try {
             String[] badIdsArray;
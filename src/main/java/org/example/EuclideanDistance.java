@@ -1,15 +1,36 @@
 package org.example;
 
-import java.util.List;
-
 public class EuclideanDistance implements DistanceMetric {
 
+    // State: sum of squares
+    @Override
+    public double accumulate(double state, double distance) {
+        return Math.fma(distance, distance, state);
+    }
+
+    @Override
+    public double finish(double state) {
+        return Math.sqrt(state);
+    }
+
+    @Override
+    public void accumulateBlock(NumericKernels kernels, double[] states, double query, double[] column, int from,
+                                int to) {
+        kernels.sumOfSquares(states, query, column, from, to);
+    }
+
+    @Override
+    public boolean isMonotone() {
+        return true;
+    }
+
+    @Override
+    public boolean isMetric() {
+        return true;
+    }
+
     @Override
-    public double aggregate(List<Double> distances) {
-        double sum = 0.0;
-        for (double d : distances) {
-            sum = Math.fma(d, d, sum);
-        }
-        return Math.sqrt(sum);
+    public double featureBudget(double state, double bound) {
+        return Math.sqrt(Math.max(0.0, bound * bound - state));
     }
 }
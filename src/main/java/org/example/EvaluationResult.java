@@ -0,0 +1,175 @@
+package org.example;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Confusion counts of one evaluation run and the metrics derived from them
+public class EvaluationResult {
+
+    private final Map<String, Integer> categoryDistribution;
+    private final int totalSamples;
+
+    private final Map<String, Integer> truePositives;
+    private final Map<String, Integer> falsePositives;
+    private final Map<String, Integer> falseNegatives;
+    private int correctPredictions;
+    private int testSize;
+
+    public EvaluationResult(Map<String, Integer> categoryDistribution) {
+        this.categoryDistribution = categoryDistribution;
+        int total = 0;
+        for (int count : categoryDistribution.values()) {
+            total += count;
+        }
+        this.totalSamples = total;
+
+        this.truePositives = new HashMap<>();
+        this.falsePositives = new HashMap<>();
+        this.falseNegatives = new HashMap<>();
+        for (String category : categoryDistribution.keySet()) {
+            truePositives.put(category, 0);
+            falsePositives.put(category, 0);
+            falseNegatives.put(category, 0);
+        }
+    }
+
+    public void record(String actualClass, String predictedClass) {
+        testSize++;
+        if (predictedClass.equals(actualClass)) {
+            correctPredictions++;
+            truePositives.merge(actualClass, 1, Integer::sum);
+        } else {
+            falsePositives.merge(predictedClass, 1, Integer::sum);
+            falseNegatives.merge(actualClass, 1, Integer::sum);
+        }
+    }
+
+    // Adds the counts of a partial result (e.g. one worker's share of the test set)
+    public void merge(EvaluationResult other) {
+        testSize += other.testSize;
+        correctPredictions += other.correctPredictions;
+        other.truePositives.forEach((category, count) -> truePositives.merge(category, count, Integer::sum));
+        other.falsePositives.forEach((category, count) -> falsePositives.merge(category, count, Integer::sum));
+        other.falseNegatives.forEach((category, count) -> falseNegatives.merge(category, count, Integer::sum));
+    }
+
+    public Map<String, Integer> getCategoryDistribution() {
+        return categoryDistribution;
+    }
+
+    // Categories that occurred among the evaluated (actual) labels
+    public Set<String> getTestCategories() {
+        Set<String> categories = new HashSet<>();
+        for (String category : truePositives.keySet()) {
+            if (truePositives.get(category) + falseNegatives.getOrDefault(category, 0) > 0) {
+                categories.add(category);
+            }
+        }
+        return categories;
+    }
+
+    public Double getAccuracy() {
+        return (double) correctPredictions / testSize;
+    }
+
+    // Precision for all documents: WEIGHTED
+    public Double getPrecision() {
+        double weightedPrecision = 0.0;
+        int notNullLabelsCount = 0;
+        for (String category : truePositives.keySet()) {
+            int samplesPerLabel = categoryDistribution.get(category);
+            Double precision = getPrecision(category);
+
+            if (precision != null) {
+                weightedPrecision += (precision * samplesPerLabel) / totalSamples;
+                notNullLabelsCount++;
+            }
+        }
+
+        if (notNullLabelsCount == 0) {
+            return null;
+        }
+
+        return weightedPrecision;
+    }
+
+    // Precision for a specific label
+    public Double getPrecision(String category) {
+        int tp = truePositives.getOrDefault(category, 0);
+        int fp = falsePositives.getOrDefault(category, 0);
+
+        if (tp == 0 && fp == 0) {
+            return null;
+        }
+
+        return (double) tp / (tp + fp);
+    }
+
+    // Recall for all documents: WEIGHTED
+    public Double getRecall() {
+        double weightedRecall = 0.0;
+        int notNullLabelsCount = 0;
+        for (String category : truePositives.keySet()) {
+            int samplesPerLabel = categoryDistribution.get(category);
+            Double recall = getRecall(category);
+
+            if (recall != null) {
+                weightedRecall += (recall * samplesPerLabel) / totalSamples;
+                notNullLabelsCount++;
+            }
+        }
+
+        if (notNullLabelsCount == 0) {
+            return null;
+        }
+
+        return weightedRecall;
+    }
+
+    // Calculate recall for a specific label
+    public Double getRecall(String category) {
+        int tp = truePositives.getOrDefault(category, 0);
+        int fn = falseNegatives.getOrDefault(category, 0);
+
+        if (tp == 0 && fn == 0) {
+            return null;
+        }
+
+        return (double) tp / (tp + fn);
+    }
+
+    // F1 score for all docs: WEIGHTED
+    public Double getF1() {
+        double weightedF1 = 0.0;
+        int notNullLabelsCount = 0;
+        for (String category : truePositives.keySet()) {
+            int samplesPerLabel = categoryDistribution.get(category);
+            Double f1 = getF1(category);
+
+            if (f1 != null) {
+                weightedF1 += (f1 * samplesPerLabel) / totalSamples;
+                notNullLabelsCount++;
+            }
+        }
+
+        if (notNullLabelsCount == 0) {
+            return null;
+        }
+
+        return weightedF1;
+    }
+
+    // F1 score for a specific label
+    public Double getF1(String category) {
+        Double precision = getPrecision(category);
+        Double recall = getRecall(category);
+
+        if (precision == null || recall == null) {
+            return null;
+        }
+
+        return 2 * precision * recall / (precision + recall);
+    }
+}
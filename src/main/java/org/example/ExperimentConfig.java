@@ -0,0 +1,163 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+// One classifier configuration of an experiment suite. Several ks are evaluated from a single neighbor
+// ranking (see KNN.evaluateSweep), several metrics from a single pass over the distances (see
+// KNN.evaluateMetrics); a configuration varies at most one of the two. Configurations can also be read from
+// text, one per line:
+//   Experiment 2: Impact of train/test ratio; k=3; ratio=0.5; features=0,1,8,9; metric=euclidean; measure=levenshtein
+// with comma-separated lists for k and metric, and an optional "; index=metric" to search neighbors with the
+// metric index. Blank lines and lines starting with # are skipped.
+public final class ExperimentConfig {
+
+    private final String experiment;
+    private final int[] ks;
+    private final double splitRatio;
+    private final Set<Integer> features;
+    private final List<DistanceMetric> metrics;
+    private final TextMeasure textMeasure;
+    private final boolean metricIndex;
+
+    public ExperimentConfig(String experiment, int k, double splitRatio, Set<Integer> features,
+                            DistanceMetric metric, TextMeasure textMeasure) {
+        this(experiment, new int[]{k}, splitRatio, features, List.of(metric), textMeasure, false);
+    }
+
+    public ExperimentConfig(String experiment, int[] ks, double splitRatio, Set<Integer> features,
+                            DistanceMetric metric, TextMeasure textMeasure, boolean metricIndex) {
+        this(experiment, ks, splitRatio, features, List.of(metric), textMeasure, metricIndex);
+    }
+
+    public ExperimentConfig(String experiment, int[] ks, double splitRatio, Set<Integer> features,
+                            List<DistanceMetric> metrics, TextMeasure textMeasure, boolean metricIndex) {
+        if (ks.length == 0 || Arrays.stream(ks).anyMatch(k -> k < 1)) {
+            throw new IllegalArgumentException("k values must be positive: " + Arrays.toString(ks));
+        }
+        if (!(splitRatio > 0 && splitRatio < 1)) {
+            throw new IllegalArgumentException("Split ratio must be between 0 and 1: " + splitRatio);
+        }
+        if (features.isEmpty() || features.stream().anyMatch(index -> index < 0 || index >= FeatureDictionary.FEATURE_COUNT)) {
+            throw new IllegalArgumentException("Invalid feature indices: " + features);
+        }
+        if (metrics.isEmpty() || (metrics.size() > 1 && ks.length > 1)) {
+            throw new IllegalArgumentException("Expected one or more metrics, several only with a single k: "
+                    + metrics.size() + " metrics, " + ks.length + " ks");
+        }
+        this.experiment = experiment;
+        this.ks = ks.clone();
+        this.splitRatio = splitRatio;
+        this.features = Collections.unmodifiableSet(new LinkedHashSet<>(features));
+        this.metrics = List.copyOf(metrics);
+        this.textMeasure = textMeasure;
+        this.metricIndex = metricIndex;
+    }
+
+    // Parses one line of the text form; metrics and measures map the lower-case names to shared instances
+    public static ExperimentConfig parse(String line, Map<String, DistanceMetric> metrics, Map<String, TextMeasure> measures) {
+        String[] parts = line.split(";");
+        Map<String, String> values = new HashMap<>();
+        for (int i = 1; i < parts.length; i++) {
+            String[] entry = parts[i].split("=", 2);
+            if (entry.length != 2) {
+                throw new IllegalArgumentException("Expected key=value, got '" + parts[i].trim() + "' in: " + line);
+            }
+            values.put(entry[0].trim().toLowerCase(), entry[1].trim());
+        }
+
+        try {
+            int[] ks = parseInts(required(values, "k", line));
+            double ratio = Double.parseDouble(required(values, "ratio", line));
+            Set<Integer> features = new LinkedHashSet<>();
+            for (int index : parseInts(required(values, "features", line))) {
+                features.add(index);
+            }
+            List<DistanceMetric> metricList = new ArrayList<>();
+            for (String name : required(values, "metric", line).split(",")) {
+                metricList.add(lookup(metrics, name.trim(), "distance metric"));
+            }
+            TextMeasure measure = lookup(measures, required(values, "measure", line), "text measure");
+            String index = values.getOrDefault("index", "none");
+            if (!index.equals("none") && !index.equals("metric")) {
+                throw new IllegalArgumentException("Unknown index '" + index + "', expected none or metric");
+            }
+            return new ExperimentConfig(parts[0].trim(), ks, ratio, features, metricList, measure, index.equals("metric"));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(e.getMessage() + " in: " + line, e);
+        }
+    }
+
+    public static List<ExperimentConfig> readAll(Path path, Map<String, DistanceMetric> metrics,
+                                                 Map<String, TextMeasure> measures) throws IOException {
+        List<ExperimentConfig> configs = new ArrayList<>();
+        for (String line : Files.readAllLines(path)) {
+            String trimmed = line.trim();
+            if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                configs.add(parse(trimmed, metrics, measures));
+            }
+        }
+        return configs;
+    }
+
+    private static String required(Map<String, String> values, String key, String line) {
+        String value = values.get(key);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing " + key + "=");
+        }
+        return value;
+    }
+
+    private static int[] parseInts(String list) {
+        return Arrays.stream(list.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+
+    private static <T> T lookup(Map<String, T> options, String name, String kind) {
+        T option = options.get(name.toLowerCase());
+        if (option == null) {
+            throw new IllegalArgumentException("Unknown " + kind + " '" + name + "', expected one of " + options.keySet());
+        }
+        return option;
+    }
+
+    public String getExperiment() {
+        return experiment;
+    }
+
+    public int[] getKs() {
+        return ks.clone();
+    }
+
+    public int getMaxK() {
+        return Arrays.stream(ks).max().orElse(1);
+    }
+
+    public double getSplitRatio() {
+        return splitRatio;
+    }
+
+    public Set<Integer> getFeatures() {
+        return features;
+    }
+
+    public List<DistanceMetric> getMetrics() {
+        return metrics;
+    }
+
+    public TextMeasure getTextMeasure() {
+        return textMeasure;
+    }
+
+    public boolean usesMetricIndex() {
+        return metricIndex;
+    }
+
+    @Override
+    public String toString() {
+        return experiment + ": k=" + Arrays.toString(ks) + ", ratio=" + splitRatio + ", features=" + features + ", "
+                + metrics.stream().map(metric -> metric.getClass().getSimpleName()).toList() + ", "
+                + textMeasure.getName() + (metricIndex ? ", metric index" : "");
+    }
+}
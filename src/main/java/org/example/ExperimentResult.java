@@ -0,0 +1,63 @@
+package org.example;
+
+import java.util.List;
+
+// Outcome of one k and metric of an ExperimentConfig
+public final class ExperimentResult {
+
+    private final ExperimentConfig config;
+    private final int k;
+    private final DistanceMetric metric;
+    private final EvaluationResult result;
+    private final List<String> actualLabels;
+    private final List<String> predictedLabels;
+    private final String indexReport;
+    private final long elapsedNanos;
+
+    ExperimentResult(ExperimentConfig config, int k, DistanceMetric metric, EvaluationResult result, List<String> actualLabels,
+                     List<String> predictedLabels, String indexReport, long elapsedNanos) {
+        this.config = config;
+        this.k = k;
+        this.metric = metric;
+        this.result = result;
+        this.actualLabels = actualLabels;
+        this.predictedLabels = predictedLabels;
+        this.indexReport = indexReport;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public ExperimentConfig getConfig() {
+        return config;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public DistanceMetric getMetric() {
+        return metric;
+    }
+
+    public EvaluationResult getResult() {
+        return result;
+    }
+
+    // Target labels of the test documents, in test set order
+    public List<String> getActualLabels() {
+        return actualLabels;
+    }
+
+    // Predicted labels in test set order; empty for configurations evaluating several ks or metrics
+    public List<String> getPredictedLabels() {
+        return predictedLabels;
+    }
+
+    public String getIndexReport() {
+        return indexReport;
+    }
+
+    // Time of the whole configuration, shared by all its ks and metrics
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
@@ -0,0 +1,89 @@
+package org.example;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Runs a list of ExperimentConfigs on a bounded thread pool against one loaded corpus. The corpus is encoded
+// once up front and only read afterwards (models scale and predict in their own views), so the configurations
+// run concurrently; every configuration evaluates sequentially on its worker. Results come back in list order,
+// equal to running the configurations one after another.
+public class ExperimentRunner {
+
+    private final List<Document> documents;
+    private final int threads;
+
+    public ExperimentRunner(List<Document> documents, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Thread count must be positive: " + threads);
+        }
+        // Encoded once here, so every run shares the dictionary instead of building its own
+        FeatureDictionary dictionary = FeatureDictionary.of(documents);
+        this.documents = documents.stream().map(dictionary::encode).toList();
+        this.threads = threads;
+    }
+
+    public ExperimentRunner(List<Document> documents) {
+        this(documents, Runtime.getRuntime().availableProcessors());
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    // One result per configuration and k, in the order of configs and their ks
+    public List<ExperimentResult> run(List<ExperimentConfig> configs) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, configs.size())));
+        try {
+            List<Future<List<ExperimentResult>>> futures = new ArrayList<>();
+            for (ExperimentConfig config : configs) {
+                futures.add(executor.submit(() -> run(config)));
+            }
+
+            List<ExperimentResult> results = new ArrayList<>();
+            for (Future<List<ExperimentResult>> future : futures) {
+                results.addAll(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Experiments interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Experiment failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<ExperimentResult> run(ExperimentConfig config) {
+        long start = System.nanoTime();
+        List<DistanceMetric> metrics = config.getMetrics();
+        KNN classifier = new KNN(config.getMaxK(), config.getSplitRatio(), config.getFeatures(),
+                metrics.get(0), config.getTextMeasure());
+        classifier.setUseMetricIndex(config.usesMetricIndex());
+        classifier.splitDataset(documents);
+        classifier.normalizeNumericalFeatures();
+        List<String> actualLabels = classifier.getTestDocuments().stream().map(Document::getTargetLabel).toList();
+
+        int[] ks = config.getKs();
+        List<ExperimentResult> results = new ArrayList<>();
+        if (metrics.size() > 1) {
+            Map<DistanceMetric, EvaluationResult> evaluated = classifier.evaluateMetrics(metrics);
+            long elapsed = System.nanoTime() - start;
+            evaluated.forEach((metric, result) -> results.add(new ExperimentResult(config, ks[0], metric, result,
+                    actualLabels, List.of(), classifier.getMetricsIndexReport(), elapsed)));
+        } else if (ks.length > 1) {
+            Map<Integer, EvaluationResult> sweep = classifier.evaluateSweep(ks);
+            long elapsed = System.nanoTime() - start;
+            sweep.forEach((k, result) -> results.add(new ExperimentResult(config, k, metrics.get(0), result,
+                    actualLabels, List.of(), classifier.getIndexReport(), elapsed)));
+        } else {
+            classifier.evaluateModel();
+            results.add(new ExperimentResult(config, ks[0], metrics.get(0), classifier.getResult(), actualLabels,
+                    classifier.getPredictedLabels(), classifier.getIndexReport(), System.nanoTime() - start));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,98 @@
+package org.example;
+
+import java.util.*;
+
+// Per-feature vocabularies of the text features. Encoding a feature vector gives a copy whose text values are
+// shared instances, with the matching ids stored next to them. Documents are never changed, so one corpus can be
+// split and encoded by several models at once.
+public class FeatureDictionary {
+
+    public static final int[] CATEGORICAL_FEATURES = {0, 2, 3, 4, 6, 7};
+    public static final int[] MULTI_VALUED_FEATURES = {1, 5};
+    public static final int FEATURE_COUNT = 10;
+
+    private final Vocabulary[] vocabularies = new Vocabulary[FEATURE_COUNT];
+
+    private FeatureDictionary(List<Document> documents) {
+        for (int index : CATEGORICAL_FEATURES) {
+            Set<String> values = new HashSet<>();
+            for (Document doc : documents) {
+                values.add(doc.getFeatures().getCategory(index));
+            }
+            vocabularies[index] = new Vocabulary(values);
+        }
+        for (int index : MULTI_VALUED_FEATURES) {
+            Set<String> values = new HashSet<>();
+            for (Document doc : documents) {
+                values.addAll(doc.getFeatures().getCategories(index));
+            }
+            vocabularies[index] = new Vocabulary(values);
+        }
+    }
+
+    // Dictionary all documents are encoded with; a new one built from their values when they do not share one
+    public static FeatureDictionary of(List<Document> documents) {
+        FeatureDictionary shared = documents.isEmpty() ? null : documents.get(0).getFeatures().getDictionary();
+        if (shared == null) {
+            return new FeatureDictionary(documents);
+        }
+        for (Document doc : documents) {
+            if (doc.getFeatures().getDictionary() != shared) {
+                return new FeatureDictionary(documents);
+            }
+        }
+        return shared;
+    }
+
+    // Features encoded with this dictionary, the vector itself when it already is
+    public FeatureVector encode(FeatureVector features) {
+        return features.encode(this);
+    }
+
+    // Copy of the document with encoded features, the document itself when they already are
+    public Document encode(Document document) {
+        FeatureVector encoded = encode(document.getFeatures());
+        return encoded == document.getFeatures()
+                ? document
+                : new Document(document.getDocumentId(), encoded, document.getTargetLabel());
+    }
+
+    public Vocabulary vocabulary(int featureIndex) {
+        Vocabulary vocabulary = vocabularies[featureIndex];
+        if (vocabulary == null) {
+            throw new IllegalArgumentException("Not a text feature index: " + featureIndex);
+        }
+        return vocabulary;
+    }
+
+    public static boolean isCategorical(int featureIndex) {
+        return contains(CATEGORICAL_FEATURES, featureIndex);
+    }
+
+    public static boolean isMultiValued(int featureIndex) {
+        return contains(MULTI_VALUED_FEATURES, featureIndex);
+    }
+
+    private static boolean contains(int[] indices, int featureIndex) {
+        for (int index : indices) {
+            if (index == featureIndex) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("FeatureDictionary{");
+        for (int index = 0; index < FEATURE_COUNT; index++) {
+            if (vocabularies[index] != null) {
+                if (sb.length() > "FeatureDictionary{".length()) {
+                    sb.append(", ");
+                }
+                sb.append(index).append('=').append(vocabularies[index].size());
+            }
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,131 @@
+package org.example;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+
+// Per-feature test x train distance matrices of one split (a KNN model after splitDataset and, optionally,
+// normalizeNumericalFeatures), each computed once. Evaluating a feature subset then only folds the chosen
+// matrices' rows with the metric, without any text measure call, which makes searching many subsets cheap.
+// Distances are stored as floats, so ties may break differently than in KNN's own double distances.
+public class FeatureDistanceMatrices {
+
+    private final TrainingStore store;
+    private final List<FeatureVector> testFeatures;
+    private final List<String> testLabels;
+    private final Map<String, Integer> categoryDistribution;
+    private final TextMeasure textMeasure;
+    private final Path spillDirectory;
+    // Heap bytes still available for matrices; larger ones are memory-mapped
+    private long heapBudget;
+    private final DistanceMatrix[] matrices = new DistanceMatrix[FeatureDictionary.FEATURE_COUNT];
+
+    public FeatureDistanceMatrices(KNN model, long heapBudgetBytes, Path spillDirectory) {
+        this.store = model.getTrainingStore();
+        this.testFeatures = model.getTestFeatures();
+        this.testLabels = model.getTestDocuments().stream().map(Document::getTargetLabel).toList();
+        this.categoryDistribution = model.countCategories();
+        this.textMeasure = model.getTextMeasure();
+        this.heapBudget = heapBudgetBytes;
+        this.spillDirectory = spillDirectory;
+    }
+
+    // Up to half of the maximum heap, the rest mapped from the temporary directory
+    public FeatureDistanceMatrices(KNN model) {
+        this(model, Runtime.getRuntime().maxMemory() / 2, Path.of(System.getProperty("java.io.tmpdir")));
+    }
+
+    // Computes the matrices of the given features that are not there yet, test documents in parallel
+    public synchronized void compute(int[] features, ExecutorService executor) {
+        for (int feature : features) {
+            if (feature < 0 || feature >= FeatureDictionary.FEATURE_COUNT) {
+                throw new IllegalArgumentException("Unknown feature index: " + feature);
+            }
+            if (matrices[feature] == null) {
+                matrices[feature] = compute(feature, executor);
+            }
+        }
+    }
+
+    private DistanceMatrix compute(int feature, ExecutorService executor) {
+        int rows = testFeatures.size();
+        int columns = store.size();
+        long bytes = (long) rows * columns * Float.BYTES;
+        DistanceMatrix matrix;
+        if (bytes <= heapBudget && (long) rows * columns <= Integer.MAX_VALUE - 8) {
+            matrix = DistanceMatrix.onHeap(rows, columns);
+            heapBudget -= bytes;
+        } else {
+            matrix = DistanceMatrix.mapped(rows, columns, spillDirectory);
+        }
+
+        KNN.runInChunks(executor, rows, (from, to) -> {
+            float[] distances = new float[columns];
+            for (int test = from; test < to; test++) {
+                FeatureVector query = testFeatures.get(test);
+                for (int row = 0; row < columns; row++) {
+                    distances[row] = (float) DistanceMetric.featureDistance(query, store, row, textMeasure, feature);
+                }
+                matrix.setRow(test, distances);
+            }
+            return null;
+        });
+        return matrix;
+    }
+
+    // Evaluates a feature subset with the metric and k on the test set. Missing matrices are computed first.
+    public EvaluationResult evaluate(int[] features, DistanceMetric metric, int k, ExecutorService executor) {
+        compute(features, executor);
+        DistanceMatrix[] selected = new DistanceMatrix[features.length];
+        for (int i = 0; i < features.length; i++) {
+            selected[i] = matrices[features[i]];
+        }
+
+        EvaluationResult result = new EvaluationResult(categoryDistribution);
+        for (EvaluationResult partial : KNN.runInChunks(executor, testFeatures.size(), (from, to) -> {
+            EvaluationResult chunkResult = new EvaluationResult(categoryDistribution);
+            NearestNeighbors neighbors = new NearestNeighbors(k, store.size());
+            int[] votes = new int[store.labelCount()];
+            double[] states = new double[store.size()];
+            float[] distances = new float[store.size()];
+            for (int test = from; test < to; test++) {
+                Arrays.fill(states, 0.0);
+                for (DistanceMatrix matrix : selected) {
+                    matrix.getRow(test, distances);
+                    for (int row = 0; row < states.length; row++) {
+                        states[row] = metric.accumulate(states[row], distances[row]);
+                    }
+                }
+                neighbors.reset();
+                for (int row = 0; row < states.length; row++) {
+                    neighbors.offer(metric.finish(states[row]), row);
+                }
+                neighbors.finish();
+                chunkResult.record(testLabels.get(test), KNN.vote(store, neighbors, k, votes));
+            }
+            return chunkResult;
+        })) {
+            result.merge(partial);
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized String toString() {
+        int count = 0;
+        long heapBytes = 0;
+        long mappedBytes = 0;
+        for (DistanceMatrix matrix : matrices) {
+            if (matrix != null) {
+                count++;
+                if (matrix.isMapped()) {
+                    mappedBytes += matrix.bytes();
+                } else {
+                    heapBytes += matrix.bytes();
+                }
+            }
+        }
+        return String.format("%d feature matrices of %d x %d distances: %.1f MB on heap, %.1f MB mapped",
+                count, testFeatures.size(), store.size(), heapBytes / 1e6, mappedBytes / 1e6);
+    }
+}
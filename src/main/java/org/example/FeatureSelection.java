@@ -0,0 +1,120 @@
+package org.example;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Greedy wrapper feature selection by test accuracy, every subset evaluated from FeatureDistanceMatrices.
+// Forward selection starts empty and adds the feature that helps most while accuracy improves; backward
+// elimination starts with all features and drops the one whose removal hurts least while accuracy does not
+// decrease. Equal candidates are decided by the lower feature index.
+public class FeatureSelection {
+
+    // One accepted step of a search
+    public static final class Step {
+        private final int[] features;
+        private final EvaluationResult result;
+
+        private Step(int[] features, EvaluationResult result) {
+            this.features = features;
+            this.result = result;
+        }
+
+        public Set<Integer> getFeatures() {
+            return Arrays.stream(features).boxed().collect(Collectors.toCollection(TreeSet::new));
+        }
+
+        public EvaluationResult getResult() {
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: accuracy %.4f, F1 %.4f", getFeatures(), result.getAccuracy(), result.getF1());
+        }
+    }
+
+    private static final int[] ALL_FEATURES = IntStream.range(0, FeatureDictionary.FEATURE_COUNT).toArray();
+
+    private final FeatureDistanceMatrices matrices;
+    private final DistanceMetric metric;
+    private final int k;
+    private final ExecutorService executor;
+
+    public FeatureSelection(FeatureDistanceMatrices matrices, DistanceMetric metric, int k, ExecutorService executor) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        this.matrices = matrices;
+        this.metric = metric;
+        this.k = k;
+        this.executor = executor;
+    }
+
+    // Accepted steps, the last one is the selected subset
+    public List<Step> forward() {
+        List<Step> steps = new ArrayList<>();
+        int[] current = new int[0];
+        double accuracy = Double.NEGATIVE_INFINITY;
+        while (current.length < ALL_FEATURES.length) {
+            Step best = null;
+            for (int feature : ALL_FEATURES) {
+                if (!contains(current, feature)) {
+                    Step candidate = evaluate(with(current, feature));
+                    if (best == null || candidate.result.getAccuracy() > best.result.getAccuracy()) {
+                        best = candidate;
+                    }
+                }
+            }
+            if (best.result.getAccuracy() <= accuracy) {
+                break;
+            }
+            steps.add(best);
+            current = best.features;
+            accuracy = best.result.getAccuracy();
+        }
+        return steps;
+    }
+
+    // Accepted steps starting with all features, the last one is the selected subset
+    public List<Step> backward() {
+        List<Step> steps = new ArrayList<>();
+        Step current = evaluate(ALL_FEATURES);
+        steps.add(current);
+        while (current.features.length > 1) {
+            Step best = null;
+            for (int feature : current.features) {
+                Step candidate = evaluate(without(current.features, feature));
+                if (best == null || candidate.result.getAccuracy() > best.result.getAccuracy()) {
+                    best = candidate;
+                }
+            }
+            if (best.result.getAccuracy() < current.result.getAccuracy()) {
+                break;
+            }
+            steps.add(best);
+            current = best;
+        }
+        return steps;
+    }
+
+    private Step evaluate(int[] features) {
+        return new Step(features, matrices.evaluate(features, metric, k, executor));
+    }
+
+    private static boolean contains(int[] features, int feature) {
+        return Arrays.stream(features).anyMatch(index -> index == feature);
+    }
+
+    private static int[] with(int[] features, int feature) {
+        int[] result = Arrays.copyOf(features, features.length + 1);
+        result[features.length] = feature;
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static int[] without(int[] features, int feature) {
+        return Arrays.stream(features).filter(index -> index != feature).toArray();
+    }
+}
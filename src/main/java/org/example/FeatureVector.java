@@ -15,6 +15,12 @@ public class FeatureVector {
     private double dayOfWeek8;
     private double wordCount9;
 
+    // Set on the copies FeatureDictionary.encode returns, indexed by feature index
+    private FeatureDictionary dictionary;
+    private int[] categoryIds;
+    private int[][] categoryIdSets;
+    private SparseVector[] termVectors;
+
     public FeatureVector(String firstName0, List<String> organisations1, String popularCountry2, String firstCity3, String popularTopic4, List<String> currency5, String author6, String localisation7, int dayOfWeek8, int wordCount9) {
         this.firstName0 = firstName0;
         this.organisations1 = organisations1;
@@ -40,6 +46,106 @@ public class FeatureVector {
         return List.of(organisations1, currency5);
     }
 
+    // Value of a single-valued text feature (0, 2, 3, 4, 6, 7)
+    public String getCategory(int featureIndex) {
+        return switch (featureIndex) {
+            case 0 -> firstName0;
+            case 2 -> popularCountry2;
+            case 3 -> firstCity3;
+            case 4 -> popularTopic4;
+            case 6 -> author6;
+            case 7 -> localisation7;
+            default -> throw new IllegalArgumentException("Not a categorical feature index: " + featureIndex);
+        };
+    }
+
+    // Values of a multi-valued text feature (1, 5)
+    public List<String> getCategories(int featureIndex) {
+        return switch (featureIndex) {
+            case 1 -> organisations1;
+            case 5 -> currency5;
+            default -> throw new IllegalArgumentException("Not a multi-valued feature index: " + featureIndex);
+        };
+    }
+
+    // Value of a numeric feature (8, 9)
+    public double getNumeric(int featureIndex) {
+        return switch (featureIndex) {
+            case 8 -> dayOfWeek8;
+            case 9 -> wordCount9;
+            default -> throw new IllegalArgumentException("Not a numeric feature index: " + featureIndex);
+        };
+    }
+
+    // Copy with other numeric values; text values, dictionary and ids are shared
+    public FeatureVector withNumeric(double dayOfWeek8, double wordCount9) {
+        FeatureVector copy = new FeatureVector(firstName0, organisations1, popularCountry2, firstCity3, popularTopic4,
+                currency5, author6, localisation7, 0, 0);
+        copy.dayOfWeek8 = dayOfWeek8;
+        copy.wordCount9 = wordCount9;
+        copy.dictionary = dictionary;
+        copy.categoryIds = categoryIds;
+        copy.categoryIdSets = categoryIdSets;
+        copy.termVectors = termVectors;
+        return copy;
+    }
+
+    // Copy with the text values replaced by the dictionary's shared instances and their ids stored; this vector
+    // is left as it is. Multi-valued features are kept sorted, in the same order as their ids.
+    FeatureVector encode(FeatureDictionary dictionary) {
+        if (this.dictionary == dictionary) {
+            return this;
+        }
+        int[] ids = new int[FeatureDictionary.FEATURE_COUNT];
+        int[][] idSets = new int[FeatureDictionary.FEATURE_COUNT][];
+        SparseVector[] terms = new SparseVector[FeatureDictionary.FEATURE_COUNT];
+
+        for (int index : FeatureDictionary.CATEGORICAL_FEATURES) {
+            ids[index] = dictionary.vocabulary(index).idOf(getCategory(index));
+        }
+        for (int index : FeatureDictionary.MULTI_VALUED_FEATURES) {
+            Vocabulary vocabulary = dictionary.vocabulary(index);
+            idSets[index] = getCategories(index).stream().mapToInt(vocabulary::idOf).sorted().toArray();
+            terms[index] = vocabulary.termVector(idSets[index]);
+        }
+
+        FeatureVector encoded = new FeatureVector(
+                dictionary.vocabulary(0).valueOf(ids[0]),
+                List.copyOf(dictionary.vocabulary(1).valuesOf(idSets[1])),
+                dictionary.vocabulary(2).valueOf(ids[2]),
+                dictionary.vocabulary(3).valueOf(ids[3]),
+                dictionary.vocabulary(4).valueOf(ids[4]),
+                List.copyOf(dictionary.vocabulary(5).valuesOf(idSets[5])),
+                dictionary.vocabulary(6).valueOf(ids[6]),
+                dictionary.vocabulary(7).valueOf(ids[7]),
+                0, 0);
+        encoded.dayOfWeek8 = dayOfWeek8;
+        encoded.wordCount9 = wordCount9;
+        encoded.categoryIds = ids;
+        encoded.categoryIdSets = idSets;
+        encoded.termVectors = terms;
+        encoded.dictionary = dictionary;
+        return encoded;
+    }
+
+    // Dictionary the vector was encoded with, null if it was not encoded
+    public FeatureDictionary getDictionary() {
+        return dictionary;
+    }
+
+    public int getCategoryId(int featureIndex) {
+        return categoryIds[featureIndex];
+    }
+
+    public int[] getCategoryIds(int featureIndex) {
+        return categoryIdSets[featureIndex];
+    }
+
+    // Case-insensitive term frequencies of a multi-valued feature
+    public SparseVector getTermVector(int featureIndex) {
+        return termVectors[featureIndex];
+    }
+
     public String getFirstName0() {
         return firstName0;
     }
@@ -80,14 +186,6 @@ public class FeatureVector {
         return wordCount9;
     }
 
-    public void setDayOfWeek8(double dayOfWeek8) {
-        this.dayOfWeek8 = dayOfWeek8;
-    }
-
-    public void setWordCount9(double wordCount9) {
-        this.wordCount9 = wordCount9;
-    }
-
     @Override
     public String toString() {
         return "FeatureVector{" +
@@ -0,0 +1,73 @@
+package org.example;
+
+import java.util.List;
+
+// Base of TextMeasure decorators: every method forwards to the wrapped measure. A decorator overrides only
+// what it changes, and a new TextMeasure hook is forwarded here once instead of in every decorator.
+public abstract class ForwardingTextMeasure implements TextMeasure {
+
+    protected final TextMeasure delegate;
+
+    protected ForwardingTextMeasure(TextMeasure delegate) {
+        this.delegate = delegate;
+    }
+
+    public TextMeasure getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public double calculate(List<String> list1, List<String> list2) {
+        return delegate.calculate(list1, list2);
+    }
+
+    @Override
+    public double calculate(String str1, String str2) {
+        return delegate.calculate(str1, str2);
+    }
+
+    @Override
+    public double calculate(Vocabulary vocabulary, int id1, int id2) {
+        return delegate.calculate(vocabulary, id1, id2);
+    }
+
+    @Override
+    public double calculate(Vocabulary vocabulary, int[] ids1, int[] ids2) {
+        return delegate.calculate(vocabulary, ids1, ids2);
+    }
+
+    @Override
+    public double calculate(Vocabulary vocabulary, int id1, int id2, double minSimilarity) {
+        return delegate.calculate(vocabulary, id1, id2, minSimilarity);
+    }
+
+    @Override
+    public double calculate(Vocabulary vocabulary, int[] ids1, int[] ids2, double minSimilarity) {
+        return delegate.calculate(vocabulary, ids1, ids2, minSimilarity);
+    }
+
+    @Override
+    public boolean isMetric() {
+        return delegate.isMetric();
+    }
+
+    @Override
+    public double disjointSimilarity() {
+        return delegate.disjointSimilarity();
+    }
+
+    @Override
+    public boolean usesTermVectors() {
+        return delegate.usesTermVectors();
+    }
+
+    @Override
+    public TextMeasure getBaseMeasure() {
+        return delegate.getBaseMeasure();
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+}
@@ -0,0 +1,92 @@
+package org.example;
+
+import java.util.Arrays;
+
+// Postings from every organisation/currency token to the training rows containing it. Most rows share no
+// token with a query, and for set measures their similarity is then a known constant (see
+// TextMeasure.disjointSimilarity). A query thus fills that distance into the whole column at once and
+// runs the text measure only on the rows reached through its tokens' postings. Tokens are lower-cased terms
+// (Vocabulary.termIdOf), so rows matching a query only up to case are scored as well.
+public class InvertedIndex {
+
+    private final TrainingStore store;
+    private final int[] features;
+    // Compressed postings per feature index: rows of term id t are rows[offsets[t]] .. rows[offsets[t + 1] - 1]
+    private final int[][] offsets = new int[FeatureDictionary.FEATURE_COUNT][];
+    private final int[][] rows = new int[FeatureDictionary.FEATURE_COUNT][];
+
+    public InvertedIndex(TrainingStore store, int[] features) {
+        this.store = store;
+        this.features = features.clone();
+        for (int feature : features) {
+            if (!FeatureDictionary.isMultiValued(feature)) {
+                throw new IllegalArgumentException("Not a multi-valued feature index: " + feature);
+            }
+            build(feature);
+        }
+    }
+
+    private void build(int feature) {
+        int[][] idSets = store.getCategorySetColumn(feature);
+        Vocabulary vocabulary = store.getDictionary().vocabulary(feature);
+        int termCount = vocabulary.termCount();
+
+        int[] start = new int[termCount + 1];
+        int[][] rowTerms = new int[idSets.length][];
+        for (int row = 0; row < idSets.length; row++) {
+            rowTerms[row] = distinctTerms(vocabulary, idSets[row]);
+            for (int term : rowTerms[row]) {
+                start[term + 1]++;
+            }
+        }
+        for (int term = 0; term < termCount; term++) {
+            start[term + 1] += start[term];
+        }
+
+        int[] postings = new int[start[termCount]];
+        int[] next = Arrays.copyOf(start, termCount);
+        for (int row = 0; row < idSets.length; row++) {
+            for (int term : rowTerms[row]) {
+                postings[next[term]++] = row;
+            }
+        }
+        offsets[feature] = start;
+        rows[feature] = postings;
+    }
+
+    private static int[] distinctTerms(Vocabulary vocabulary, int[] ids) {
+        return Arrays.stream(ids).map(vocabulary::termIdOf).distinct().toArray();
+    }
+
+    public int[] getFeatures() {
+        return features.clone();
+    }
+
+    // Writes the distance of the query to every training row for one indexed feature into column. Returns false,
+    // leaving column undefined, when the index cannot help: the query has no tokens, is not encoded with the
+    // store's dictionary, or the measure has no constant similarity for disjoint sets.
+    public boolean fillDistances(FeatureVector query, int feature, TextMeasure textMeasure, double[] column) {
+        double disjointSimilarity = textMeasure.disjointSimilarity();
+        int[] ids = query.getDictionary() == store.getDictionary() ? query.getCategoryIds(feature) : null;
+        if (Double.isNaN(disjointSimilarity) || ids == null || ids.length == 0) {
+            return false;
+        }
+
+        double disjointDistance = 1.0 - disjointSimilarity;
+        Arrays.fill(column, 0, store.size(), disjointDistance);
+
+        int[] start = offsets[feature];
+        int[] postings = rows[feature];
+        for (int term : distinctTerms(store.getDictionary().vocabulary(feature), ids)) {
+            for (int p = start[term]; p < start[term + 1]; p++) {
+                int row = postings[p];
+                // Rows reached through several terms are scored once; a row whose exact distance happens to
+                // equal the bulk value may be scored again, with the same result
+                if (column[row] == disjointDistance) {
+                    column[row] = DistanceMetric.featureDistance(query, store, row, textMeasure, feature);
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -1,5 +1,6 @@
 package org.example;
 
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -15,17 +16,59 @@ public class JaccardTextMeasure implements TextMeasure {
         Set<String> set1 = new HashSet<>(list1);
         Set<String> set2 = new HashSet<>(list2);
 
-        Set<String> intersection = new HashSet<>(set1);
-        intersection.retainAll(set2);
-
-        Set<String> union = new HashSet<>(set1);
-        union.addAll(set2);
+        // |A u B| = |A| + |B| - |A n B|, no intersection or union sets needed
+        int intersection = 0;
+        for (String token : set1) {
+            if (set2.contains(token)) {
+                intersection++;
+            }
+        }
+        int union = set1.size() + set2.size() - intersection;
 
-        if (union.isEmpty()) {
+        if (union == 0) {
             return 0.0;
         }
 
-        return (double) intersection.size() / union.size();
+        return (double) intersection / union;
+    }
+
+    // Same as the list variant, on the sorted id arrays encoded at load time: one merge pass counts the distinct shared and total ids
+    @Override
+    public double calculate(Vocabulary vocabulary, int[] ids1, int[] ids2) {
+        if (ids1 == null || ids2 == null || (ids1.length == 0 && ids2.length == 0)) {
+            return 1.0;
+        }
+
+        int intersection = 0;
+        int union = 0;
+        int i = 0;
+        int j = 0;
+        while (i < ids1.length || j < ids2.length) {
+            int id;
+            if (j == ids2.length || (i < ids1.length && ids1[i] < ids2[j])) {
+                id = ids1[i];
+            } else if (i == ids1.length || ids2[j] < ids1[i]) {
+                id = ids2[j];
+            } else {
+                id = ids1[i];
+                intersection++;
+            }
+            union++;
+            while (i < ids1.length && ids1[i] == id) i++;
+            while (j < ids2.length && ids2[j] == id) j++;
+        }
+
+        return (double) intersection / union;
+    }
+
+    // Character sets as 128-bit masks, precomputed per vocabulary value
+    @Override
+    public double calculate(Vocabulary vocabulary, int id1, int id2) {
+        if (!vocabulary.isAsciiOnly(id1) || !vocabulary.isAsciiOnly(id2)) {
+            return calculate(vocabulary.valueOf(id1), vocabulary.valueOf(id2));
+        }
+        return jaccard(vocabulary.charMaskLow(id1), vocabulary.charMaskHigh(id1),
+                vocabulary.charMaskLow(id2), vocabulary.charMaskHigh(id2));
     }
 
     @Override
@@ -34,26 +77,71 @@ public class JaccardTextMeasure implements TextMeasure {
             return 1.0;
         }
 
-        Set<Character> set1 = new HashSet<>();
-        for (char c : str1.toCharArray()) {
-            set1.add(c);
+        long low1 = 0L, high1 = 0L, low2 = 0L, high2 = 0L;
+        for (int i = 0; i < str1.length(); i++) {
+            char c = str1.charAt(i);
+            if (c >= 128) {
+                return sortedCharJaccard(str1, str2);
+            }
+            if (c < 64) low1 |= 1L << c; else high1 |= 1L << (c - 64);
         }
-
-        Set<Character> set2 = new HashSet<>();
-        for (char c : str2.toCharArray()) {
-            set2.add(c);
+        for (int i = 0; i < str2.length(); i++) {
+            char c = str2.charAt(i);
+            if (c >= 128) {
+                return sortedCharJaccard(str1, str2);
+            }
+            if (c < 64) low2 |= 1L << c; else high2 |= 1L << (c - 64);
         }
+        return jaccard(low1, high1, low2, high2);
+    }
 
-        Set<Character> intersection = new HashSet<>(set1);
-        intersection.retainAll(set2);
+    private static double jaccard(long low1, long high1, long low2, long high2) {
+        int union = Long.bitCount(low1 | low2) + Long.bitCount(high1 | high2);
+        if (union == 0) {
+            return 1.0; // Two empty strings
+        }
+        int intersection = Long.bitCount(low1 & low2) + Long.bitCount(high1 & high2);
+        return (double) intersection / union;
+    }
 
-        Set<Character> union = new HashSet<>(set1);
-        union.addAll(set2);
+    // Any chars: distinct counts by merging the two sorted char arrays
+    private static double sortedCharJaccard(String str1, String str2) {
+        char[] chars1 = str1.toCharArray();
+        char[] chars2 = str2.toCharArray();
+        Arrays.sort(chars1);
+        Arrays.sort(chars2);
 
-        if (union.isEmpty()) {
-            return 0.0;
+        int intersection = 0;
+        int union = 0;
+        int i = 0;
+        int j = 0;
+        while (i < chars1.length || j < chars2.length) {
+            char c;
+            if (j == chars2.length || (i < chars1.length && chars1[i] < chars2[j])) {
+                c = chars1[i];
+            } else if (i == chars1.length || chars2[j] < chars1[i]) {
+                c = chars2[j];
+            } else {
+                c = chars1[i];
+                intersection++;
+            }
+            union++;
+            while (i < chars1.length && chars1[i] == c) i++;
+            while (j < chars2.length && chars2[j] == c) j++;
         }
 
-        return (double) intersection.size() / union.size();
+        return (double) intersection / union;
+    }
+
+    // The Jaccard distance of sets is a metric
+    @Override
+    public boolean isMetric() {
+        return true;
+    }
+
+    // Empty intersection, non-empty union
+    @Override
+    public double disjointSimilarity() {
+        return 0.0;
     }
 }
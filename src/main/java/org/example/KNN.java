@@ -1,37 +1,159 @@
 package org.example;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 public class KNN {
 
     private final int k;
     private final double trainRatio;
-    private final Set<Integer> selectedFeatureIndices;
+    private final int[] featureIndices;
+    private final int[] cheapestFirstIndices;
+    private boolean earlyAbandon = true;
     private final DistanceMetric distanceMetric;
     private final TextMeasure textMeasure;
 
     private List<Document> allDocuments;
-    private List<Document> trainingDocuments;
+    private TrainingStore trainingStore;
+    // Over the selected organisation/currency features, null when none is selected or the measure has no
+    // constant disjoint similarity
+    private InvertedIndex invertedIndex;
+    private boolean useMetricIndex = false;
+    // Built on first use, after normalization; null while not built or when the combination is not a metric
+    private VantagePointTree metricIndex;
+    // MinHash LSH bands and rows per band of the approximate search, 0 for exact search
+    private int lshBands;
+    private int lshRows;
+    private MinHashIndex approximateIndex;
+    private NumericKernels numericKernels = NumericKernels.defaultKernels();
     private List<Document> testDocuments;
+    // Features of the test documents encoded with the training store's dictionary, numeric values as loaded
+    private List<FeatureVector> encodedTestFeatures;
+    // The same with the training store's scaling applied
+    private List<FeatureVector> testFeatures;
+    // Predicted label of each test document in the last evaluateModel run
+    private String[] predictedLabels;
 
-    private final Map<String, Integer> truePositives;
-    private final Map<String, Integer> falsePositives;
-    private final Map<String, Integer> falseNegatives;
-    private int correctPredictions;
-    private Map<String, Integer> categoryDistribution;
+    private EvaluationResult result;
+
+    // Test documents per task when evaluating on an executor
+    private static final int EVALUATION_CHUNK_SIZE = 64;
+
+    // Training rows whose numeric distances are folded together by the block kernels
+    private static final int NUMERIC_BLOCK_SIZE = 256;
+
+    // Feature evaluation order for early abandoning: numeric differences first, then the short
+    // organisation/currency lists, then the string features roughly by typical length
+    private static final int[] FEATURE_COST_ORDER = {8, 9, 1, 5, 4, 2, 3, 7, 6, 0};
 
     public KNN(int k, double trainRatio, Set<Integer> selectedFeatureIndices,
                DistanceMetric distanceMetric, TextMeasure textMeasure) {
         this.k = k;
         this.trainRatio = trainRatio;
-        this.selectedFeatureIndices = selectedFeatureIndices;
+        this.featureIndices = selectedFeatureIndices.stream().mapToInt(Integer::intValue).toArray();
+        this.cheapestFirstIndices = Arrays.stream(FEATURE_COST_ORDER).filter(selectedFeatureIndices::contains).toArray();
         this.distanceMetric = distanceMetric;
         this.textMeasure = textMeasure;
+    }
+
+    // Early abandoning (on by default) passes the current k-th nearest distance into the distance computation,
+    // which stops once a row can no longer get in, and evaluates features cheapest first. Neighbors are the same
+    // either way; only the summation order of the features differs.
+    public void setEarlyAbandon(boolean earlyAbandon) {
+        this.earlyAbandon = earlyAbandon;
+    }
+
+    // Searches neighbors in a VantagePointTree instead of scanning all training rows, when the distance metric,
+    // text measure and selected features form a true metric; otherwise the scan is kept. Neighbors are the same.
+    public void setUseMetricIndex(boolean useMetricIndex) {
+        this.useMetricIndex = useMetricIndex;
+        this.metricIndex = null;
+        this.approximateIndex = null;
+    }
+
+    // Block kernels of the numeric features for later evaluations of this model (see NumericKernels); neighbors
+    // are the same with either
+    public void setNumericKernels(NumericKernels numericKernels) {
+        this.numericKernels = numericKernels.requireAvailable();
+    }
+
+    public NumericKernels getNumericKernels() {
+        return numericKernels;
+    }
 
-        this.truePositives = new HashMap<>();
-        this.falsePositives = new HashMap<>();
-        this.falseNegatives = new HashMap<>();
+    // Ranks only the MinHash LSH candidates of each query (see MinHashIndex) instead of all training rows.
+    // Neighbors may be missed; applies to Jaccard configurations with at least one text feature selected.
+    public void setApproximateSearch(int bands, int rowsPerBand) {
+        if (bands < 1 || rowsPerBand < 1) {
+            throw new IllegalArgumentException("Bands and rows per band must be positive: " + bands + " x " + rowsPerBand);
+        }
+        this.lshBands = bands;
+        this.lshRows = rowsPerBand;
+        this.approximateIndex = null;
+    }
+
+    public void setExactSearch() {
+        this.lshBands = 0;
+        this.lshRows = 0;
+        this.approximateIndex = null;
+    }
+
+    private boolean supportsApproximateSearch() {
+        return textMeasure.getBaseMeasure() instanceof JaccardTextMeasure
+                && Arrays.stream(featureIndices).anyMatch(index -> index < 8);
+    }
+
+    // Whether the configured combination satisfies the triangle inequality, which the metric index relies on
+    public boolean isMetric() {
+        boolean textFeatures = Arrays.stream(featureIndices).anyMatch(index -> index < 8);
+        return distanceMetric.isMetric() && (!textFeatures || textMeasure.isMetric());
+    }
+
+    // How neighbors are searched, with the metric index's savings once it was used
+    public String getIndexReport() {
+        if (approximateIndex != null) {
+            return approximateIndex.toString();
+        }
+        if (lshBands > 0 && !supportsApproximateSearch()) {
+            return "Exact search: approximate search needs Jaccard and a text feature, not " + textMeasure.getName();
+        }
+        if (metricIndex != null) {
+            return metricIndex.toString();
+        }
+        if (useMetricIndex && !isMetric()) {
+            return "Full scan: " + distanceMetric.getClass().getSimpleName() + " with " + textMeasure.getName()
+                    + " is not a metric";
+        }
+        return "Full scan";
+    }
+
+    // How evaluateMetrics searches: every training row is ranked, since the metric index and approximate
+    // search are built for the model's own metric
+    public String getMetricsIndexReport() {
+        if (approximateIndex != null || lshBands > 0) {
+            return "Full scan: approximate search is not used when evaluating several metrics";
+        }
+        if (useMetricIndex) {
+            return "Full scan: the metric index is not used when evaluating several metrics";
+        }
+        return "Full scan";
+    }
+
+    private synchronized MinHashIndex approximateIndex() {
+        if (approximateIndex == null && lshBands > 0 && supportsApproximateSearch()) {
+            approximateIndex = new MinHashIndex(trainingStore, distanceMetric, textMeasure, featureIndices, lshBands, lshRows);
+        }
+        return approximateIndex;
+    }
+
+    private synchronized VantagePointTree metricIndex() {
+        if (metricIndex == null && useMetricIndex && isMetric()) {
+            metricIndex = new VantagePointTree(trainingStore, distanceMetric, textMeasure, featureIndices);
+        }
+        return metricIndex;
     }
 
     public void splitDataset(List<Document> documents) {
@@ -43,257 +165,430 @@ public class KNN {
 
         int trainingSize = (int) (shuffledDocs.size() * trainRatio);
 
-        this.trainingDocuments = shuffledDocs.subList(0, trainingSize);
+        // Both parts are encoded into this model's own copies (see FeatureDictionary); the documents are not changed
+        FeatureDictionary dictionary = FeatureDictionary.of(documents);
+        this.trainingStore = new TrainingStore(shuffledDocs.subList(0, trainingSize), dictionary);
         this.testDocuments = shuffledDocs.subList(trainingSize, shuffledDocs.size());
+        this.encodedTestFeatures = testDocuments.stream().map(doc -> dictionary.encode(doc.getFeatures())).toList();
+        this.testFeatures = encodedTestFeatures;
+        this.predictedLabels = null;
+        buildIndexes();
+    }
+
+    // Builds the inverted index over the current training store; the lazy indexes are rebuilt on first use
+    private void buildIndexes() {
+        int[] indexedFeatures = Arrays.stream(FeatureDictionary.MULTI_VALUED_FEATURES)
+                .filter(index -> Arrays.stream(featureIndices).anyMatch(selected -> selected == index))
+                .toArray();
+        this.invertedIndex = indexedFeatures.length == 0 || Double.isNaN(textMeasure.disjointSimilarity())
+                ? null
+                : new InvertedIndex(trainingStore, indexedFeatures);
+        this.metricIndex = null;
+        this.approximateIndex = null;
     }
 
 
-    // Single document
+    // Single document, scaled like the training set
     public String classify(Document document) {
-        PriorityQueue<DocumentDistance> nearestNeighbors = new PriorityQueue<>(
-                Comparator.comparingDouble(DocumentDistance::distance).reversed()
-        );
+        FeatureVector query = trainingStore.getScaler().scale(document.getFeatures());
+        return classify(query, new NearestNeighbors(k, trainingStore.size()),
+                new int[trainingStore.labelCount()], new Workspace());
+    }
 
-        for (Document trainDoc : trainingDocuments) {
-            double distance = calculateDistance(document, trainDoc);
-            nearestNeighbors.add(new DocumentDistance(trainDoc, distance));
+    // Classifies with caller-provided scratch space, reused across the documents of one worker
+    private String classify(FeatureVector query, NearestNeighbors neighbors, int[] votes, Workspace workspace) {
+        findNearestNeighbors(query, neighbors, workspace);
+        return vote(neighbors, k, votes);
+    }
 
-            if (nearestNeighbors.size() > k) {
-                nearestNeighbors.poll();  // remove the "worst" neighbor (biggest distance)
+    // Per-worker scratch arrays of the neighbor search
+    private final class Workspace {
+        // Inverted index distance columns, one per indexed feature
+        final double[][] columns = new double[FeatureDictionary.FEATURE_COUNT][];
+        // Numeric part of the metric state for one block of training rows
+        final double[] numericStates = new double[NUMERIC_BLOCK_SIZE];
+        // Fixed for the evaluation the workspace belongs to
+        final NumericKernels kernels = numericKernels;
+
+        Workspace() {
+            if (invertedIndex != null) {
+                for (int feature : invertedIndex.getFeatures()) {
+                    columns[feature] = new double[trainingStore.size()];
+                }
             }
         }
+    }
 
-        Map<String, Integer> classCounts = new HashMap<>();
-        for (DocumentDistance neighbor : nearestNeighbors) {
-            String docClass = neighbor.document().getTargetLabel();
-            classCounts.put(docClass, classCounts.getOrDefault(docClass, 0) + 1);
+    // Fills the selector with the nearest training rows, closest first. Equal distances keep training set order,
+    // so the first k entries of a longer ranking are exactly the k nearest neighbors.
+    private void findNearestNeighbors(FeatureVector query, NearestNeighbors neighbors, Workspace workspace) {
+        int[] order = earlyAbandon ? cheapestFirstIndices : featureIndices;
+        double[][] known = indexedDistances(query, workspace.columns);
+        MinHashIndex lsh = approximateIndex();
+        if (lsh != null && query.getDictionary() == trainingStore.getDictionary()) {
+            lsh.search(query, neighbors, neighbors.getK(), order, known);
+            return;
+        }
+        VantagePointTree tree = metricIndex();
+        if (tree != null) {
+            tree.search(query, neighbors, order, known);
+            return;
         }
 
-        return classCounts.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse("unknown");
+        // Leading numeric features are folded for a whole block of rows at once, each row then continues
+        // from its numeric state with the remaining features
+        int numericPrefix = 0;
+        while (numericPrefix < order.length && order[numericPrefix] >= 8) {
+            numericPrefix++;
+        }
+        double[] states = workspace.numericStates;
+
+        neighbors.reset();
+        for (int from = 0; from < trainingStore.size(); from += NUMERIC_BLOCK_SIZE) {
+            int to = Math.min(from + NUMERIC_BLOCK_SIZE, trainingStore.size());
+            Arrays.fill(states, 0, to - from, 0.0);
+            for (int i = 0; i < numericPrefix; i++) {
+                distanceMetric.accumulateBlock(workspace.kernels, states, query.getNumeric(order[i]), trainingStore.getNumericColumn(order[i]), from, to);
+            }
+            for (int row = from; row < to; row++) {
+                double bound = earlyAbandon ? neighbors.bound() : Double.POSITIVE_INFINITY;
+                neighbors.offer(distanceMetric.calculate(query, trainingStore, row, textMeasure, order,
+                        numericPrefix, states[row - from], bound, known), row);
+            }
+        }
+        neighbors.finish();
     }
 
-    private Double calculateDistance(Document doc1, Document doc2) {
-        return distanceMetric.calculate(doc1, doc2, textMeasure, selectedFeatureIndices);
+    // Distances of the indexed features to all training rows, filled into the scratch columns;
+    // null entries for features the query has to be compared row by row on
+    private double[][] indexedDistances(FeatureVector query, double[][] columns) {
+        if (invertedIndex == null) {
+            return null;
+        }
+        double[][] known = new double[FeatureDictionary.FEATURE_COUNT][];
+        for (int feature : invertedIndex.getFeatures()) {
+            if (invertedIndex.fillDistances(query, feature, textMeasure, columns[feature])) {
+                known[feature] = columns[feature];
+            }
+        }
+        return known;
     }
 
-    // Run classification on the test set and calculate metrics
-    public void evaluateModel() {
-        truePositives.clear();
-        falsePositives.clear();
-        falseNegatives.clear();
-        correctPredictions = 0;
-
-        Map<String, Integer> categoryDistribution = new HashMap<>();
-        for (Document doc : allDocuments) {
-            String category = doc.getTargetLabel();
-            categoryDistribution.put(category, categoryDistribution.getOrDefault(category, 0) + 1);
-        }
+    private String vote(NearestNeighbors neighbors, int k, int[] votes) {
+        return vote(trainingStore, neighbors, k, votes);
+    }
 
-        for (String category : categoryDistribution.keySet()) {
-            truePositives.put(category, 0);
-            falsePositives.put(category, 0);
-            falseNegatives.put(category, 0);
+    // Majority label among the first k neighbors. Ties go to the lower label id, that is, to the label that
+    // sorts first.
+    static String vote(TrainingStore trainingStore, NearestNeighbors neighbors, int k, int[] votes) {
+        Arrays.fill(votes, 0);
+        int[] labelIds = trainingStore.getLabelIds();
+        int limit = Math.min(k, neighbors.size());
+        for (int i = 0; i < limit; i++) {
+            votes[labelIds[neighbors.row(i)]]++;
         }
 
-        for (Document testDoc : testDocuments) {
-            String actualClass = testDoc.getTargetLabel();
-            String predictedClass = classify(testDoc);
-            testDoc.setPredictedLabel(predictedClass);
-
-            if (predictedClass.equals(actualClass)) {
-                correctPredictions++;
-                truePositives.put(actualClass, truePositives.get(actualClass) + 1);
-            } else {
-                falsePositives.put(predictedClass, falsePositives.get(predictedClass) + 1);
-                falseNegatives.put(actualClass, falseNegatives.get(actualClass) + 1);
+        int best = -1;
+        for (int label = 0; label < votes.length; label++) {
+            if (votes[label] > 0 && (best < 0 || votes[label] > votes[best])) {
+                best = label;
             }
         }
-
-        this.categoryDistribution = categoryDistribution;
+        return best < 0 ? "unknown" : trainingStore.getLabel(best);
     }
 
-    public Double getAccuracy() {
-        return (double) correctPredictions / testDocuments.size();
+    // Run classification on the test set and calculate metrics
+    public void evaluateModel() {
+        EvaluationResult result = new EvaluationResult(countCategories());
+        String[] predictions = new String[testDocuments.size()];
+        evaluateRange(0, testDocuments.size(), result, predictions);
+        this.result = result;
+        this.predictedLabels = predictions;
     }
 
-    // Precision for all documents: WEIGHTED
-    public Double getPrecision() {
-        int totalSamples = allDocuments.size();
-
-        double weightedPrecision = 0.0;
-        int notNullLabelsCount = 0;
-        for (String category : truePositives.keySet()) {
-            int samplesPerLabel = categoryDistribution.get(category);
-            Double precision = getPrecision(category);
-
-            if (precision != null) {
-                weightedPrecision += (precision * samplesPerLabel) / totalSamples;
-                notNullLabelsCount++;
-            }
+    // Same as evaluateModel(), but test documents are classified concurrently on the given executor.
+    // Every task counts into its own partial result, partials are merged in test set order afterwards,
+    // so the metrics are identical to the sequential run.
+    public void evaluateModel(ExecutorService executor) {
+        Map<String, Integer> categoryDistribution = countCategories();
+
+        EvaluationResult result = new EvaluationResult(categoryDistribution);
+        // Chunks write disjoint ranges of the predictions
+        String[] predictions = new String[testDocuments.size()];
+        for (EvaluationResult partial : runInChunks(executor, (from, to) -> {
+            EvaluationResult chunkResult = new EvaluationResult(categoryDistribution);
+            evaluateRange(from, to, chunkResult, predictions);
+            return chunkResult;
+        })) {
+            result.merge(partial);
         }
+        this.result = result;
+        this.predictedLabels = predictions;
+    }
 
-        if (notNullLabelsCount == 0) {
-            return null;
+    private void evaluateRange(int from, int to, EvaluationResult result, String[] predictions) {
+        NearestNeighbors neighbors = new NearestNeighbors(k, trainingStore.size());
+        int[] votes = new int[trainingStore.labelCount()];
+        Workspace workspace = new Workspace();
+        for (int i = from; i < to; i++) {
+            String predictedClass = classify(testFeatures.get(i), neighbors, votes, workspace);
+            predictions[i] = predictedClass;
+            result.record(testDocuments.get(i).getTargetLabel(), predictedClass);
         }
-
-        return weightedPrecision;
     }
 
-    // Precision for a specific label
-    public Double getPrecision(String category) {
-        int tp = truePositives.getOrDefault(category, 0);
-        int fp = falsePositives.getOrDefault(category, 0);
+    // Evaluates several values of k at once: every test document is ranked against the training set
+    // a single time, up to the largest k, and each k votes on its prefix of that ranking.
+    // The configured k of this model is not used; the predicted labels of evaluateModel are not touched.
+    public Map<Integer, EvaluationResult> evaluateSweep(int[] ks) {
+        Map<String, Integer> categoryDistribution = countCategories();
+        Map<Integer, EvaluationResult> results = createSweepResults(ks, categoryDistribution);
+        sweepRange(0, testDocuments.size(), ks, results);
+        return results;
+    }
 
-        if (tp == 0 && fp == 0) {
-            return null;
+    // Same as evaluateSweep(int[]), with test documents ranked concurrently on the given executor
+    public Map<Integer, EvaluationResult> evaluateSweep(int[] ks, ExecutorService executor) {
+        Map<String, Integer> categoryDistribution = countCategories();
+
+        Map<Integer, EvaluationResult> results = createSweepResults(ks, categoryDistribution);
+        for (Map<Integer, EvaluationResult> partial : runInChunks(executor, (from, to) -> {
+            Map<Integer, EvaluationResult> chunkResults = createSweepResults(ks, categoryDistribution);
+            sweepRange(from, to, ks, chunkResults);
+            return chunkResults;
+        })) {
+            partial.forEach((sweepK, chunkResult) -> results.get(sweepK).merge(chunkResult));
         }
-
-        return (double) tp / (tp + fp);
+        return results;
     }
 
-    // Recall for all documents: WEIGHTED
-    public Double getRecall() {
-        int totalSamples = allDocuments.size();
-
-        double weightedRecall = 0.0;
-        int notNullLabelsCount = 0;
-        for (String category : truePositives.keySet()) {
-            int samplesPerLabel = categoryDistribution.get(category);
-            Double recall = getRecall(category);
-
-            if (recall != null) {
-                weightedRecall += (recall * samplesPerLabel) / totalSamples;
-                notNullLabelsCount++;
+    private Map<Integer, EvaluationResult> createSweepResults(int[] ks, Map<String, Integer> categoryDistribution) {
+        Map<Integer, EvaluationResult> results = new LinkedHashMap<>();
+        for (int sweepK : ks) {
+            if (sweepK < 1) {
+                throw new IllegalArgumentException("k must be positive: " + sweepK);
             }
+            results.put(sweepK, new EvaluationResult(categoryDistribution));
         }
+        return results;
+    }
 
-        if (notNullLabelsCount == 0) {
-            return null;
+    private void sweepRange(int from, int to, int[] ks, Map<Integer, EvaluationResult> results) {
+        int maxK = Arrays.stream(ks).max().orElse(1);
+        NearestNeighbors neighbors = new NearestNeighbors(maxK, trainingStore.size());
+        int[] votes = new int[trainingStore.labelCount()];
+        Workspace workspace = new Workspace();
+        for (int i = from; i < to; i++) {
+            findNearestNeighbors(testFeatures.get(i), neighbors, workspace);
+            String targetLabel = testDocuments.get(i).getTargetLabel();
+            for (Map.Entry<Integer, EvaluationResult> entry : results.entrySet()) {
+                entry.getValue().record(targetLabel, vote(neighbors, entry.getKey(), votes));
+            }
         }
-
-        return weightedRecall;
     }
 
-    // Calculate recall for a specific label
-    public Double getRecall(String category) {
-        int tp = truePositives.getOrDefault(category, 0);
-        int fn = falseNegatives.getOrDefault(category, 0);
+    // Evaluates several distance metrics in one pass: the per-feature distances of every (test, training) pair
+    // are computed once and folded by each metric into its own ranking, in the feature order evaluateModel uses,
+    // so every result equals an exact evaluateModel with that metric. The model's own metric is not used;
+    // the predicted labels of evaluateModel are not touched.
+    public Map<DistanceMetric, EvaluationResult> evaluateMetrics(List<DistanceMetric> metrics) {
+        Map<DistanceMetric, EvaluationResult> results = createMetricResults(metrics, countCategories());
+        metricsRange(0, testDocuments.size(), results);
+        return results;
+    }
 
-        if (tp == 0 && fn == 0) {
-            return null;
+    // Same as evaluateMetrics(List), with test documents ranked concurrently on the given executor
+    public Map<DistanceMetric, EvaluationResult> evaluateMetrics(List<DistanceMetric> metrics, ExecutorService executor) {
+        Map<String, Integer> categoryDistribution = countCategories();
+
+        Map<DistanceMetric, EvaluationResult> results = createMetricResults(metrics, categoryDistribution);
+        for (Map<DistanceMetric, EvaluationResult> partial : runInChunks(executor, (from, to) -> {
+            Map<DistanceMetric, EvaluationResult> chunkResults = createMetricResults(metrics, categoryDistribution);
+            metricsRange(from, to, chunkResults);
+            return chunkResults;
+        })) {
+            partial.forEach((metric, chunkResult) -> results.get(metric).merge(chunkResult));
         }
+        return results;
+    }
 
-        return (double) tp / (tp + fn);
+    private Map<DistanceMetric, EvaluationResult> createMetricResults(List<DistanceMetric> metrics,
+                                                                      Map<String, Integer> categoryDistribution) {
+        if (metrics.isEmpty()) {
+            throw new IllegalArgumentException("No distance metric to evaluate");
+        }
+        Map<DistanceMetric, EvaluationResult> results = new LinkedHashMap<>();
+        for (DistanceMetric metric : metrics) {
+            results.put(metric, new EvaluationResult(categoryDistribution));
+        }
+        return results;
     }
 
-    // F1 score for all docs: WEIGHTED
-    public Double getF1() {
-        double weightedF1 = 0.0;
-        int notNullLabelsCount = 0;
-        for (String category : truePositives.keySet()) {
-            int samplesPerLabel = categoryDistribution.get(category);
-            Double f1 = getF1(category);
-
-            if (f1 != null) {
-                weightedF1 += (f1 * samplesPerLabel) / allDocuments.size();
-                notNullLabelsCount++;
-            }
+    private void metricsRange(int from, int to, Map<DistanceMetric, EvaluationResult> results) {
+        int[] order = earlyAbandon ? cheapestFirstIndices : featureIndices;
+        DistanceMetric[] metrics = results.keySet().toArray(new DistanceMetric[0]);
+        // A row is dropped once every metric has it beyond its current k-th nearest, which needs monotone metrics
+        boolean prune = earlyAbandon && Arrays.stream(metrics).allMatch(DistanceMetric::isMonotone);
+        NearestNeighbors[] neighbors = new NearestNeighbors[metrics.length];
+        for (int m = 0; m < metrics.length; m++) {
+            neighbors[m] = new NearestNeighbors(k, trainingStore.size());
         }
+        int[] votes = new int[trainingStore.labelCount()];
+        Workspace workspace = new Workspace();
+        double[] states = new double[metrics.length];
+
+        for (int i = from; i < to; i++) {
+            FeatureVector query = testFeatures.get(i);
+            double[][] known = indexedDistances(query, workspace.columns);
+            for (NearestNeighbors selector : neighbors) {
+                selector.reset();
+            }
+            for (int row = 0; row < trainingStore.size(); row++) {
+                Arrays.fill(states, 0.0);
+                boolean abandoned = false;
+                for (int f = 0; f < order.length && !abandoned; f++) {
+                    double[] column = known == null ? null : known[order[f]];
+                    double distance = column != null
+                            ? column[row]
+                            : DistanceMetric.featureDistance(query, trainingStore, row, textMeasure, order[f]);
+                    abandoned = prune;
+                    for (int m = 0; m < metrics.length; m++) {
+                        states[m] = metrics[m].accumulate(states[m], distance);
+                        abandoned &= metrics[m].finish(states[m]) > neighbors[m].bound();
+                    }
+                }
+                if (!abandoned) {
+                    for (int m = 0; m < metrics.length; m++) {
+                        neighbors[m].offer(metrics[m].finish(states[m]), row);
+                    }
+                }
+            }
 
-        if (notNullLabelsCount == 0) {
-            return null;
+            String targetLabel = testDocuments.get(i).getTargetLabel();
+            for (int m = 0; m < metrics.length; m++) {
+                neighbors[m].finish();
+                results.get(metrics[m]).record(targetLabel, vote(neighbors[m], k, votes));
+            }
         }
+    }
 
-        return weightedF1;
+    // Splits the test set into chunks, runs them on the executor and returns their results in test set order
+    private <T> List<T> runInChunks(ExecutorService executor, ChunkTask<T> task) {
+        return runInChunks(executor, testDocuments.size(), task);
     }
 
-    // F1 score for a specific label
-    public Double getF1(String category) {
-        Double precision = getPrecision(category);
-        Double recall = getRecall(category);
+    static <T> List<T> runInChunks(ExecutorService executor, int size, ChunkTask<T> task) {
+        List<Future<T>> futures = new ArrayList<>();
+        for (int from = 0; from < size; from += EVALUATION_CHUNK_SIZE) {
+            int start = from;
+            int end = Math.min(from + EVALUATION_CHUNK_SIZE, size);
+            futures.add(executor.submit(() -> task.run(start, end)));
+        }
 
-        if (precision == null || recall == null) {
-            return null;
+        List<T> results = new ArrayList<>();
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Evaluation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Evaluation failed", e.getCause());
         }
+        return results;
+    }
 
-        return 2 * precision * recall / (precision + recall);
+    interface ChunkTask<T> {
+        T run(int from, int to);
     }
 
-    public List<Document> getTestDocuments() {
-        return testDocuments;
+    Map<String, Integer> countCategories() {
+        Map<String, Integer> categoryDistribution = new HashMap<>();
+        for (Document doc : allDocuments) {
+            String category = doc.getTargetLabel();
+            categoryDistribution.put(category, categoryDistribution.getOrDefault(category, 0) + 1);
+        }
+        return categoryDistribution;
     }
 
-    private record DocumentDistance(Document document, double distance) {}
+    public EvaluationResult getResult() {
+        return result;
+    }
 
-    // Calculates mean, std, applies normalization
-    public void normalizeNumericalFeatures() {
-        double[] means = calculateMeans();
-        double dayOfWeekMean = means[0];
-        double wordCountMean = means[1];
+    public Double getAccuracy() {
+        return result.getAccuracy();
+    }
 
-        double[] stdDevs = calculateStandardDeviation(dayOfWeekMean, wordCountMean);
-        double dayOfWeekStdDev = stdDevs[0];
-        double wordCountStdDev = stdDevs[1];
+    // Precision for all documents: WEIGHTED
+    public Double getPrecision() {
+        return result.getPrecision();
+    }
 
-        normalizeDocuments(dayOfWeekMean, dayOfWeekStdDev, wordCountMean, wordCountStdDev, trainingDocuments);
-        normalizeDocuments(dayOfWeekMean, dayOfWeekStdDev, wordCountMean, wordCountStdDev, testDocuments);
+    // Precision for a specific label
+    public Double getPrecision(String category) {
+        return result.getPrecision(category);
     }
 
-    // Applies normalization
-    private void normalizeDocuments(double dayOfWeekMean, double dayOfWeekStdDev, double wordCountMean, double wordCountStdDev, List<Document> trainingDocuments) {
-        double dayOfWeekFactor = dayOfWeekStdDev == 0 ? 0 : 1/dayOfWeekStdDev;
-        double wordCountFactor = wordCountStdDev == 0 ? 0 : 1/wordCountStdDev;
+    // Recall for all documents: WEIGHTED
+    public Double getRecall() {
+        return result.getRecall();
+    }
 
-        for (Document doc : trainingDocuments) {
-            FeatureVector features = doc.getFeatures();
-            double normalizedDayOfWeek = (features.getDayOfWeek8() - dayOfWeekMean) * dayOfWeekFactor;
-            double normalizedWordCount = (features.getWordCount9() - wordCountMean) * wordCountFactor;
-            doc.getFeatures().setDayOfWeek8(normalizedDayOfWeek);
-            doc.getFeatures().setWordCount9(normalizedWordCount);
-        }
+    // Recall for a specific label
+    public Double getRecall(String category) {
+        return result.getRecall(category);
     }
 
-    // Means only for numerical features: dayOfWeek8, wordCount9
-    private double[] calculateMeans() {
-        double dayOfWeekSum = 0.0;
-        double wordCountSum = 0.0;
+    // F1 score for all docs: WEIGHTED
+    public Double getF1() {
+        return result.getF1();
+    }
 
-        for (Document doc : trainingDocuments) {
-            FeatureVector features = doc.getFeatures();
-            dayOfWeekSum += features.getDayOfWeek8();
-            wordCountSum += features.getWordCount9();
-        }
+    // F1 score for a specific label
+    public Double getF1(String category) {
+        return result.getF1(category);
+    }
 
-        double dayOfWeekMean = dayOfWeekSum / trainingDocuments.size();
-        double wordCountMean = wordCountSum / trainingDocuments.size();
+    public List<Document> getTestDocuments() {
+        return testDocuments;
+    }
 
-        return new double[]{dayOfWeekMean, wordCountMean};
+    // Test features as the model sees them, i.e. scaled like the training store
+    List<FeatureVector> getTestFeatures() {
+        return testFeatures;
     }
 
-    private double[] calculateStandardDeviation(double dayOfWeekMean, double wordCountMean) {
-        double dayOfWeekSumSquaredDiff = 0.0;
-        double wordCountSumSquaredDiff = 0.0;
+    TrainingStore getTrainingStore() {
+        return trainingStore;
+    }
 
-        for (Document doc : trainingDocuments) {
-            FeatureVector features = doc.getFeatures();
-            double dayOfWeekDifference = features.getDayOfWeek8() - dayOfWeekMean;
-            double wordCountDifference = features.getWordCount9() - wordCountMean;
+    TextMeasure getTextMeasure() {
+        return textMeasure;
+    }
 
-            dayOfWeekSumSquaredDiff += dayOfWeekDifference * dayOfWeekDifference;
-            wordCountSumSquaredDiff += wordCountDifference * wordCountDifference;
+    // Predicted labels of the last evaluateModel run, in test document order
+    public List<String> getPredictedLabels() {
+        if (predictedLabels == null) {
+            throw new IllegalStateException("The model has not been evaluated yet");
         }
+        return Collections.unmodifiableList(Arrays.asList(predictedLabels));
+    }
 
-        double dayOfWeekStdDev = Math.sqrt(dayOfWeekSumSquaredDiff / trainingDocuments.size());
-        double wordCountStdDev = Math.sqrt(wordCountSumSquaredDiff / trainingDocuments.size());
-        return new double[]{dayOfWeekStdDev, wordCountStdDev};
+    // Z-score scales the numeric features with the training split's mean and standard deviation. Only this
+    // model's view changes (see NumericScaler): the documents keep their loaded values, and scaling again
+    // gives the same view.
+    public void normalizeNumericalFeatures() {
+        trainingStore = trainingStore.scaled(NumericScaler.fit(trainingStore));
+        NumericScaler scaler = trainingStore.getScaler();
+        testFeatures = encodedTestFeatures.stream().map(scaler::scale).toList();
+        buildIndexes();
     }
 
     public void printClassDistribution() {
-        Map<String, Long> trainingDist = trainingDocuments.stream()
-                .collect(Collectors.groupingBy(Document::getTargetLabel, Collectors.counting()));
+        Map<String, Long> trainingDist = Arrays.stream(trainingStore.getLabelIds())
+                .mapToObj(trainingStore::getLabel)
+                .collect(Collectors.groupingBy(label -> label, Collectors.counting()));
 
         Map<String, Long> testDist = testDocuments.stream()
                 .collect(Collectors.groupingBy(Document::getTargetLabel, Collectors.counting()));
@@ -1,19 +1,37 @@
 package org.example;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+// Normalized edit distance: 1 - distance / longer length. Strings whose shorter side fits in 64 chars use
+// Myers' bit-parallel algorithm, longer ones a two-row dynamic program. Token lists are compared as ids, so a
+// step is an int comparison instead of String.equals. The bounded forms give up once the distance is known to
+// exceed a maximum, which nearest-neighbor pruning uses to skip hopeless rows.
 public class LevenshteinTextMeasure implements TextMeasure {
 
+    private static final int WORD_SIZE = 64;
+    private static final int ASCII = 128;
+
+    // Per-thread match masks of the ASCII chars, cleared again after every call
+    private static final ThreadLocal<long[]> PEQ = ThreadLocal.withInitial(() -> new long[ASCII]);
+
     @Override
     public double calculate(List<String> list1, List<String> list2) {
         if (list1 == null || list2 == null) return 0.0;
         if (list1.isEmpty() && list2.isEmpty()) return 1.0;
 
-        int distance = levenshtein(list1, list2);
-        int maxLen = Math.max(list1.size(), list2.size());
-        if (maxLen == 0) return 1.0;
-
-        return 1.0 - ((double) distance / maxLen);
+        // Local interning: equal tokens get equal ids
+        Map<String, Integer> ids = new HashMap<>();
+        int[] ids1 = new int[list1.size()];
+        int[] ids2 = new int[list2.size()];
+        for (int i = 0; i < ids1.length; i++) {
+            ids1[i] = ids.computeIfAbsent(list1.get(i), token -> ids.size());
+        }
+        for (int i = 0; i < ids2.length; i++) {
+            ids2[i] = ids.computeIfAbsent(list2.get(i), token -> ids.size());
+        }
+        return similarity(distance(ids1, ids2, Integer.MAX_VALUE), Math.max(ids1.length, ids2.length));
     }
 
     @Override
@@ -21,47 +39,201 @@ public class LevenshteinTextMeasure implements TextMeasure {
         if (str1 == null || str2 == null) return 0.0;
         if (str1.isEmpty() && str2.isEmpty()) return 1.0;
 
-        int distance = levenshtein(str1, str2);
+        return similarity(distance(str1, str2), Math.max(str1.length(), str2.length()));
+    }
+
+    // Vocabulary ids are unique per value, so sorted id arrays compare exactly like the value lists
+    @Override
+    public double calculate(Vocabulary vocabulary, int[] ids1, int[] ids2) {
+        return calculate(vocabulary, ids1, ids2, Double.NEGATIVE_INFINITY);
+    }
+
+    @Override
+    public double calculate(Vocabulary vocabulary, int id1, int id2, double minSimilarity) {
+        return calculate(vocabulary.valueOf(id1), vocabulary.valueOf(id2), minSimilarity);
+    }
+
+    @Override
+    public double calculate(Vocabulary vocabulary, int[] ids1, int[] ids2, double minSimilarity) {
+        if (ids1 == null || ids2 == null) return 0.0;
+        if (ids1.length == 0 && ids2.length == 0) return 1.0;
+
+        int maxLen = Math.max(ids1.length, ids2.length);
+        return similarity(distance(ids1, ids2, maxDistance(minSimilarity, maxLen)), maxLen);
+    }
+
+    // Bounded string similarity: below minSimilarity the result may be any value in [exact, minSimilarity)
+    public double calculate(String str1, String str2, double minSimilarity) {
+        if (str1 == null || str2 == null) return 0.0;
+        if (str1.isEmpty() && str2.isEmpty()) return 1.0;
+
         int maxLen = Math.max(str1.length(), str2.length());
+        return similarity(distance(str1, str2, maxDistance(minSimilarity, maxLen)), maxLen);
+    }
 
-        return 1.0 - ((double) distance / maxLen);
+    public static int distance(String s1, String s2) {
+        return distance(s1, s2, Integer.MAX_VALUE);
     }
 
-    private int levenshtein(List<String> list1, List<String> list2) {
-        int[][] dp = new int[list1.size() + 1][list2.size() + 1];
+    // Edit distance, or maxDistance + 1 as soon as it is known to be larger than maxDistance
+    public static int distance(String s1, String s2, int maxDistance) {
+        String pattern = s1.length() <= s2.length() ? s1 : s2;
+        String text = pattern == s1 ? s2 : s1;
+        // The distance never exceeds the longer length
+        maxDistance = Math.min(maxDistance, text.length());
+        if (text.length() - pattern.length() > maxDistance) {
+            return maxDistance + 1;
+        }
+        if (pattern.isEmpty()) {
+            return text.length();
+        }
+        return pattern.length() <= WORD_SIZE
+                ? myers(pattern, text, maxDistance)
+                : twoRow(pattern, text, maxDistance);
+    }
 
-        for (int i = 0; i <= list1.size(); i++) dp[i][0] = i;
-        for (int j = 0; j <= list2.size(); j++) dp[0][j] = j;
+    static int distance(int[] ids1, int[] ids2, int maxDistance) {
+        int[] shorter = ids1.length <= ids2.length ? ids1 : ids2;
+        int[] longer = shorter == ids1 ? ids2 : ids1;
+        maxDistance = Math.min(maxDistance, longer.length);
+        if (longer.length - shorter.length > maxDistance) {
+            return maxDistance + 1;
+        }
 
-        for (int i = 1; i <= list1.size(); i++) {
-            for (int j = 1; j <= list2.size(); j++) {
-                int cost = list1.get(i - 1).equals(list2.get(j - 1)) ? 0 : 1;
-                dp[i][j] = Math.min(
-                        Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1),
-                        dp[i - 1][j - 1] + cost
-                );
+        int[] previous = new int[shorter.length + 1];
+        int[] current = new int[shorter.length + 1];
+        for (int i = 0; i <= shorter.length; i++) previous[i] = i;
+
+        for (int j = 1; j <= longer.length; j++) {
+            current[0] = j;
+            int rowMin = j;
+            int id = longer[j - 1];
+            for (int i = 1; i <= shorter.length; i++) {
+                int cost = shorter[i - 1] == id ? 0 : 1;
+                current[i] = Math.min(Math.min(previous[i] + 1, current[i - 1] + 1), previous[i - 1] + cost);
+                rowMin = Math.min(rowMin, current[i]);
             }
+            if (rowMin > maxDistance) {
+                return maxDistance + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
         }
 
-        return dp[list1.size()][list2.size()];
+        return Math.min(previous[shorter.length], maxDistance + 1);
     }
 
-    private int levenshtein(String s1, String s2) {
-        int[][] dp = new int[s1.length() + 1][s2.length() + 1];
+    // Myers (1999) in Hyyrö's formulation: one bit-vector step per text char. Bit i of Pv/Mv is set where
+    // the vertical difference D[i+1][j] - D[i][j] is +1/-1; score tracks the last row D[m][j].
+    private static int myers(String pattern, String text, int maxDistance) {
+        int m = pattern.length();
+        int n = text.length();
+        long[] peq = PEQ.get();
+        for (int i = 0; i < m; i++) {
+            char c = pattern.charAt(i);
+            if (c < ASCII) {
+                peq[c] |= 1L << i;
+            }
+        }
 
-        for (int i = 0; i <= s1.length(); i++) dp[i][0] = i;
-        for (int j = 0; j <= s2.length(); j++) dp[0][j] = j;
+        long pv = -1L;
+        long mv = 0L;
+        long last = 1L << (m - 1);
+        int score = m;
+        try {
+            for (int j = 0; j < n; j++) {
+                char c = text.charAt(j);
+                long eq = c < ASCII ? peq[c] : matchMask(pattern, c);
+                long xv = eq | mv;
+                long xh = (((eq & pv) + pv) ^ pv) | eq;
+                long ph = mv | ~(xh | pv);
+                long mh = pv & xh;
+                if ((ph & last) != 0) {
+                    score++;
+                } else if ((mh & last) != 0) {
+                    score--;
+                }
+                ph = (ph << 1) | 1L;
+                mh <<= 1;
+                pv = mh | ~(xv | ph);
+                mv = ph & xv;
+
+                // Each remaining text char can lower the last row by at most one
+                if (score - (n - j - 1) > maxDistance) {
+                    return maxDistance + 1;
+                }
+            }
+            return Math.min(score, maxDistance + 1);
+        } finally {
+            for (int i = 0; i < m; i++) {
+                char c = pattern.charAt(i);
+                if (c < ASCII) {
+                    peq[c] = 0L;
+                }
+            }
+        }
+    }
 
-        for (int i = 1; i <= s1.length(); i++) {
-            for (int j = 1; j <= s2.length(); j++) {
-                int cost = s1.charAt(i - 1) == s2.charAt(j - 1) ? 0 : 1;
-                dp[i][j] = Math.min(
-                        Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1),
-                        dp[i - 1][j - 1] + cost
-                );
+    private static long matchMask(String pattern, char c) {
+        long mask = 0L;
+        for (int i = 0; i < pattern.length(); i++) {
+            if (pattern.charAt(i) == c) {
+                mask |= 1L << i;
             }
         }
+        return mask;
+    }
 
-        return dp[s1.length()][s2.length()];
+    private static int twoRow(String pattern, String text, int maxDistance) {
+        int m = pattern.length();
+        int[] previous = new int[m + 1];
+        int[] current = new int[m + 1];
+        for (int i = 0; i <= m; i++) previous[i] = i;
+
+        for (int j = 1; j <= text.length(); j++) {
+            current[0] = j;
+            int rowMin = j;
+            char c = text.charAt(j - 1);
+            for (int i = 1; i <= m; i++) {
+                int cost = pattern.charAt(i - 1) == c ? 0 : 1;
+                current[i] = Math.min(Math.min(previous[i] + 1, current[i - 1] + 1), previous[i - 1] + cost);
+                rowMin = Math.min(rowMin, current[i]);
+            }
+            if (rowMin > maxDistance) {
+                return maxDistance + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        return Math.min(previous[m], maxDistance + 1);
+    }
+
+    private static double similarity(int distance, int maxLen) {
+        return 1.0 - ((double) distance / maxLen);
+    }
+
+    // Largest distance whose similarity still reaches minSimilarity, computed with the same expression as the
+    // similarity itself so that every cut-off result is strictly below minSimilarity
+    private static int maxDistance(double minSimilarity, int maxLen) {
+        if (!(minSimilarity > 0.0)) {
+            return maxLen;
+        }
+        int max = (int) Math.min(maxLen, Math.floor((1.0 - minSimilarity) * maxLen));
+        while (max < maxLen && similarity(max + 1, maxLen) >= minSimilarity) {
+            max++;
+        }
+        while (max > 0 && similarity(max, maxLen) < minSimilarity) {
+            max--;
+        }
+        return max;
+    }
+
+    // Without a common token every position needs an edit: distance = longer length
+    @Override
+    public double disjointSimilarity() {
+        return 0.0;
     }
 }
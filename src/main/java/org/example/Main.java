@@ -1,9 +1,15 @@
 package org.example;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
 
 import static org.example.UI.createAndPrintConfusionMatrix;
-import static org.example.UI.runClassifier;
+import static org.example.UI.printExperimentResults;
+import static org.example.UI.runApproximate;
+import static org.example.UI.runFeatureSelection;
+import static org.example.UI.runKernelBenchmark;
 
 public class Main {
     public static void main(String[] args) {
@@ -25,6 +31,11 @@ public class Main {
             return;
         }
 
+        if (args.length > 1 && Files.isRegularFile(Path.of(args[1]))) {
+            runExperimentFile(Path.of(args[1]), documents);
+            return;
+        }
+
         boolean isPredefined = false;
         if (args.length >1) {
             isPredefined = Boolean.parseBoolean(args[1]);
@@ -51,65 +62,95 @@ public class Main {
         DistanceMetric euclidean = new EuclideanDistance();
         DistanceMetric manhattan = new ManhattanDistance();
         DistanceMetric chebyshev = new ChebyshevDistance();
-        TextMeasure jaccard = new JaccardTextMeasure();
-        TextMeasure levenshtein = new LevenshteinTextMeasure();
+        FeatureDictionary dictionary = FeatureDictionary.of(documents);
+        TabulatedTextMeasure jaccard = new TabulatedTextMeasure(dictionary, new JaccardTextMeasure());
+        TabulatedTextMeasure levenshtein = new TabulatedTextMeasure(dictionary, new LevenshteinTextMeasure());
+        System.out.println(levenshtein);
+        System.out.println(jaccard);
 
         Set<Integer> allFeatures = Set.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
 
-        System.out.println("\n==== Experiment 1: Impact of k value ====");
-        for (int k : new int[]{1, 3, 5, 10, 25, 75, 100, 150, 250, 400}) {
-            runClassifier(k, bestRatio, allFeatures, euclidean, levenshtein, documents);
-        }
-
-        System.out.println("\n==== Experiment 2: Impact of train/test ratio ====");
-        for (double ratio : new double[]{0.1, 0.3, 0.5, 0.7, 0.9}) {
-            runClassifier(bestK, ratio, allFeatures, euclidean, levenshtein, documents);
-        }
-
-        System.out.println("\n==== Experiment 3: Impact of distance metric ====");
         Map<String, DistanceMetric> metrics = new LinkedHashMap<>();
         metrics.put("Euclidean", euclidean);
         metrics.put("Manhattan", manhattan);
         metrics.put("Chebyshev", chebyshev);
 
-        for (Map.Entry<String, DistanceMetric> entry : metrics.entrySet()) {
-            runClassifier(bestK, bestRatio, allFeatures, entry.getValue(), levenshtein, documents);
-        }
-
-        System.out.println("\n==== Experiment 3b: Impact of text similarity measures ====");
         Map<String, TextMeasure> similarities = new LinkedHashMap<>();
         similarities.put("Levenshtein", levenshtein);
         similarities.put("Jaccard", jaccard);
 
-        for (Map.Entry<String, TextMeasure> entry : similarities.entrySet()) {
-            runClassifier(bestK, bestRatio, allFeatures, euclidean, entry.getValue(), documents);
+        List<ExperimentConfig> experiments = new ArrayList<>();
+        experiments.add(new ExperimentConfig("Experiment 1: Impact of k value", new int[]{1, 3, 5, 10, 25, 75, 100, 150, 250, 400},
+                bestRatio, allFeatures, euclidean, levenshtein, false));
+        for (double ratio : new double[]{0.1, 0.3, 0.5, 0.7, 0.9}) {
+            experiments.add(new ExperimentConfig("Experiment 2: Impact of train/test ratio", bestK, ratio, allFeatures, euclidean, levenshtein));
         }
+        // All metrics from one pass over the per-feature distances
+        experiments.add(new ExperimentConfig("Experiment 3: Impact of distance metric", new int[]{bestK}, bestRatio, allFeatures,
+                List.copyOf(metrics.values()), levenshtein, false));
+        for (TextMeasure similarity : similarities.values()) {
+            experiments.add(new ExperimentConfig("Experiment 3b: Impact of text similarity measures", new int[]{bestK},
+                    bestRatio, allFeatures, euclidean, similarity, true));
+        }
+        for (Set<Integer> subset : List.of(Set.of(0, 1), Set.of(0, 1, 2, 3, 4), Set.of(5, 6), Set.of(5, 6, 7, 8, 9))) {
+            experiments.add(new ExperimentConfig("Experiment 4: Impact of feature selection", bestK, bestRatio, subset, manhattan, levenshtein));
+        }
+        experiments.add(new ExperimentConfig("Experiment 5: Perfect configuration", bestK, bestRatio, Set.of(5, 6, 7, 8, 9), manhattan, levenshtein));
+
+        List<ExperimentResult> results = runExperiments(experiments, documents);
 
-        System.out.println("\n==== Experiment 4: Impact of feature selection ====");
+        ExperimentResult perfect = results.get(results.size() - 1);
+        createAndPrintConfusionMatrix(perfect.getActualLabels(), perfect.getPredictedLabels());
 
-        List<Set<Integer>> featureSubsets = new ArrayList<>();
-        featureSubsets.add(Set.of(0, 1));
-        featureSubsets.add(Set.of(0, 1, 2, 3, 4));
-        featureSubsets.add(Set.of(5, 6));
-        featureSubsets.add(Set.of(5, 6, 7, 8, 9));
+        System.out.println("\n==== Experiment 4b: Greedy feature selection ====");
+        runFeatureSelection(bestK, bestRatio, manhattan, levenshtein, documents);
 
-        for (Set<Integer> subset : featureSubsets) {
-            runClassifier(bestK, bestRatio, subset, manhattan, levenshtein, documents);
+        // Timing comparisons run alone, after the suite
+        System.out.println("\n==== Experiment 3c: Approximate Jaccard search (MinHash LSH bands x rows) ====");
+        for (int[] banding : new int[][]{{32, 2}, {16, 4}, {8, 8}}) {
+            runApproximate(bestK, bestRatio, allFeatures, euclidean, jaccard, documents, banding[0], banding[1]);
         }
 
-        System.out.println("\n==== Experiment 5: Perfect configuration ====");
-        KNN classifier = runClassifier(bestK, bestRatio, Set.of(5, 6, 7, 8, 9), manhattan, levenshtein, documents);
+        System.out.println("\n==== Experiment 3d: Numeric kernels, scalar vs SIMD (features 8, 9) ====");
+        for (DistanceMetric metric : metrics.values()) {
+            runKernelBenchmark(bestK, bestRatio, Set.of(8, 9), metric, levenshtein, documents);
+        }
+    }
+
+    // Runs the configurations of a file (see ExperimentConfig) with the shared metrics and tabulated measures
+    public static void runExperimentFile(Path path, List<org.example.Document> documents) {
+        FeatureDictionary dictionary = FeatureDictionary.of(documents);
+        Map<String, DistanceMetric> metrics = Map.of(
+                "euclidean", new EuclideanDistance(),
+                "manhattan", new ManhattanDistance(),
+                "chebyshev", new ChebyshevDistance());
+        Map<String, TextMeasure> measures = Map.of(
+                "levenshtein", new TabulatedTextMeasure(dictionary, new LevenshteinTextMeasure()),
+                "jaccard", new TabulatedTextMeasure(dictionary, new JaccardTextMeasure()),
+                "cosine", new TabulatedTextMeasure(dictionary, new CosineTextMeasure()));
+
+        List<ExperimentConfig> experiments;
+        try {
+            experiments = ExperimentConfig.readAll(path, metrics, measures);
+        } catch (IOException e) {
+            System.err.println("Error reading experiments: " + e.getMessage());
+            return;
+        } catch (IllegalArgumentException e) {
+            System.err.println("Invalid experiment: " + e.getMessage());
+            return;
+        }
+        runExperiments(experiments, documents);
+    }
 
-        List<String> actualLabels = classifier.getTestDocuments()
-                .stream()
-                .map(org.example.Document::getTargetLabel)
-                .toList();
-        List<String> predictedLabels = classifier.getTestDocuments()
-                .stream()
-                .map(org.example.Document::getPredictedLabel)
-                .toList();
+    private static List<ExperimentResult> runExperiments(List<ExperimentConfig> experiments, List<org.example.Document> documents) {
+        ExperimentRunner runner = new ExperimentRunner(documents);
+        long start = System.nanoTime();
+        List<ExperimentResult> results = runner.run(experiments);
+        long elapsed = System.nanoTime() - start;
 
-        createAndPrintConfusionMatrix(actualLabels, predictedLabels);
+        printExperimentResults(results);
+        System.out.printf("%n%d configurations on %d threads in %d ms%n", experiments.size(), runner.getThreads(), elapsed / 1_000_000);
+        return results;
     }
 
 }
\ No newline at end of file
@@ -1,15 +1,36 @@
 package org.example;
 
-import java.util.List;
-
 public class ManhattanDistance implements DistanceMetric {
 
+    // State: sum of absolute values
+    @Override
+    public double accumulate(double state, double distance) {
+        return state + Math.abs(distance);
+    }
+
+    @Override
+    public double finish(double state) {
+        return state;
+    }
+
+    @Override
+    public void accumulateBlock(NumericKernels kernels, double[] states, double query, double[] column, int from,
+                                int to) {
+        kernels.sumOfAbs(states, query, column, from, to);
+    }
+
+    @Override
+    public boolean isMonotone() {
+        return true;
+    }
+
+    @Override
+    public boolean isMetric() {
+        return true;
+    }
+
     @Override
-    public double aggregate(List<Double> distances) {
-        double sum = 0.0;
-        for (double d : distances) {
-            sum += Math.abs(d);
-        }
-        return sum;
+    public double featureBudget(double state, double bound) {
+        return bound - state;
     }
 }
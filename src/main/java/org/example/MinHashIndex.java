@@ -0,0 +1,225 @@
+package org.example;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+// Approximate neighbor search for Jaccard configurations. Every training row is reduced to one token set:
+// the 3-character shingles of its selected single-valued text features (a shorter value as one token) and the
+// ids of its selected organisations and currencies, each tagged with its feature. A MinHash signature of bands * rows values estimates the Jaccard
+// similarity of two such sets, and rows agreeing on all values of at least one band become candidates of each
+// other; only those are ranked with the exact distance. More rows per band make candidates stricter (fewer, more
+// similar), more bands raise the recall. Rows whose selected text features are all empty have no tokens and no
+// signature: they are kept out of the bands and are the candidates of queries that are empty as well, which
+// Jaccard rates identical to them and unrelated to everything else.
+public class MinHashIndex {
+
+    private static final int SHINGLE_LENGTH = 3;
+    private static final int SHINGLE = 0;
+    private static final int ID = 1;
+    private static final int SHORT_VALUE = 2;
+
+    private final TrainingStore store;
+    private final DistanceMetric metric;
+    private final TextMeasure textMeasure;
+    private final int[] textFeatures;
+    private final int bands;
+    private final int rowsPerBand;
+    private final long[] multipliers;
+    private final long[] offsets;
+    // Per band: band hash -> training rows with that hash, ascending
+    private final List<Map<Long, int[]>> buckets;
+
+    // Rows without tokens, ascending
+    private final int[] emptyRows;
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder candidates = new LongAdder();
+    private final LongAdder fullScans = new LongAdder();
+
+    public MinHashIndex(TrainingStore store, DistanceMetric metric, TextMeasure textMeasure, int[] featureIndices,
+                        int bands, int rowsPerBand) {
+        if (bands < 1 || rowsPerBand < 1) {
+            throw new IllegalArgumentException("Bands and rows per band must be positive: " + bands + " x " + rowsPerBand);
+        }
+        this.store = store;
+        this.metric = metric;
+        this.textMeasure = textMeasure;
+        this.textFeatures = Arrays.stream(featureIndices)
+                .filter(index -> FeatureDictionary.isCategorical(index) || FeatureDictionary.isMultiValued(index))
+                .toArray();
+        if (textFeatures.length == 0) {
+            throw new IllegalArgumentException("MinHash needs at least one text feature");
+        }
+        this.bands = bands;
+        this.rowsPerBand = rowsPerBand;
+
+        // Hash functions h(x) = mix(a * x + b) with odd a, from a fixed seed
+        int hashCount = bands * rowsPerBand;
+        SplittableRandom random = new SplittableRandom(42L);
+        this.multipliers = new long[hashCount];
+        this.offsets = new long[hashCount];
+        for (int i = 0; i < hashCount; i++) {
+            multipliers[i] = random.nextLong() | 1L;
+            offsets[i] = random.nextLong();
+        }
+
+        List<Map<Long, List<Integer>>> lists = new ArrayList<>();
+        for (int band = 0; band < bands; band++) {
+            lists.add(new HashMap<>());
+        }
+        List<Integer> empty = new ArrayList<>();
+        long[] signature = new long[hashCount];
+        for (int row = 0; row < store.size(); row++) {
+            if (!signature(store.getFeatures(row), signature)) {
+                empty.add(row);
+                continue;
+            }
+            for (int band = 0; band < bands; band++) {
+                lists.get(band).computeIfAbsent(bandHash(signature, band), key -> new ArrayList<>()).add(row);
+            }
+        }
+
+        this.emptyRows = empty.stream().mapToInt(Integer::intValue).toArray();
+        this.buckets = new ArrayList<>();
+        for (Map<Long, List<Integer>> list : lists) {
+            Map<Long, int[]> band = new HashMap<>();
+            list.forEach((key, rows) -> band.put(key, rows.stream().mapToInt(Integer::intValue).toArray()));
+            buckets.add(band);
+        }
+    }
+
+    // Offers the query's candidates to neighbors, ranked exactly (order and knownDistances as for
+    // DistanceMetric.calculate), and finishes it. Queries with fewer than k candidates scan all rows.
+    public void search(FeatureVector query, NearestNeighbors neighbors, int k, int[] order, double[][] knownDistances) {
+        int[] rows = candidates(query);
+        boolean fullScan = rows.length < k;
+        if (fullScan) {
+            fullScans.increment();
+        }
+
+        neighbors.reset();
+        int count = fullScan ? store.size() : rows.length;
+        for (int i = 0; i < count; i++) {
+            int row = fullScan ? i : rows[i];
+            neighbors.offer(metric.calculate(query, store, row, textMeasure, order, neighbors.bound(), knownDistances), row);
+        }
+        neighbors.finish();
+    }
+
+    // Training rows sharing at least one band with the query, ascending; the empty rows for an empty query
+    public int[] candidates(FeatureVector query) {
+        long[] signature = new long[multipliers.length];
+        if (!signature(query, signature)) {
+            queries.increment();
+            candidates.add(emptyRows.length);
+            return emptyRows.clone();
+        }
+
+        int[][] matches = new int[bands][];
+        int total = 0;
+        for (int band = 0; band < bands; band++) {
+            matches[band] = buckets.get(band).getOrDefault(bandHash(signature, band), new int[0]);
+            total += matches[band].length;
+        }
+        int[] rows = new int[total];
+        int position = 0;
+        for (int[] match : matches) {
+            System.arraycopy(match, 0, rows, position, match.length);
+            position += match.length;
+        }
+        int[] distinct = Arrays.stream(rows).sorted().distinct().toArray();
+
+        queries.increment();
+        candidates.add(distinct.length);
+        return distinct;
+    }
+
+    // Fills the signature of the vector's tokens; false, leaving it unset, when there are none
+    private boolean signature(FeatureVector vector, long[] signature) {
+        Arrays.fill(signature, Long.MAX_VALUE);
+        boolean tokens = false;
+        for (int feature : textFeatures) {
+            if (FeatureDictionary.isCategorical(feature)) {
+                String value = vector.getCategory(feature);
+                if (value.isEmpty()) {
+                    continue;
+                }
+                tokens = true;
+                if (value.length() < SHINGLE_LENGTH) {
+                    update(signature, token(feature, SHORT_VALUE, pack(value, 0, value.length())));
+                    continue;
+                }
+                for (int i = 0; i + SHINGLE_LENGTH <= value.length(); i++) {
+                    update(signature, token(feature, SHINGLE, pack(value, i, i + SHINGLE_LENGTH)));
+                }
+            } else {
+                for (int id : vector.getCategoryIds(feature)) {
+                    tokens = true;
+                    update(signature, token(feature, ID, id & 0xFFFFFFFFL));
+                }
+            }
+        }
+        return tokens;
+    }
+
+    // Up to three characters, 16 bits each
+    private static long pack(String value, int from, int to) {
+        long packed = 0;
+        for (int i = from; i < to; i++) {
+            packed = (packed << 16) | value.charAt(i);
+        }
+        return packed;
+    }
+
+    // Feature index, kind (shingle, id or short value) and a value of up to 48 bits packed into one key
+    private static long token(int feature, int kind, long value) {
+        return ((long) feature << 52) | ((long) kind << 48) | value;
+    }
+
+    private void update(long[] signature, long token) {
+        for (int i = 0; i < signature.length; i++) {
+            long hash = mix(multipliers[i] * token + offsets[i]);
+            if (hash < signature[i]) {
+                signature[i] = hash;
+            }
+        }
+    }
+
+    private long bandHash(long[] signature, int band) {
+        long hash = band;
+        for (int i = band * rowsPerBand; i < (band + 1) * rowsPerBand; i++) {
+            hash = mix(hash * 31 + signature[i]);
+        }
+        return hash;
+    }
+
+    // Finalizer of MurmurHash3's 64-bit variant
+    private static long mix(long x) {
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        x *= 0xc4ceb9fe1a85ec53L;
+        x ^= x >>> 33;
+        return x;
+    }
+
+    public int getBands() {
+        return bands;
+    }
+
+    public int getRowsPerBand() {
+        return rowsPerBand;
+    }
+
+    public double getAverageCandidates() {
+        long queryCount = queries.sum();
+        return queryCount == 0 ? 0.0 : (double) candidates.sum() / queryCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MinHash LSH %d bands x %d rows over %d rows: %d queries, %.1f candidates per query (%.2f%% of the training set), %d full scans, %d rows without text",
+                bands, rowsPerBand, store.size(), queries.sum(), getAverageCandidates(),
+                store.size() == 0 ? 0.0 : 100 * getAverageCandidates() / store.size(), fullScans.sum(), emptyRows.length);
+    }
+}
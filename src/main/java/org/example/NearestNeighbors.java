@@ -0,0 +1,173 @@
+package org.example;
+
+// Bounded selection of the k nearest (distance, row) candidates in parallel primitive arrays.
+// Candidates are ordered by distance, equal distances by row. For small k a max-heap of the current best k
+// is kept; when k is a large fraction of the candidates, all of them are buffered and quickselect picks the k
+// nearest at the end. One instance is reused across queries (reset), so offering a candidate allocates nothing.
+public class NearestNeighbors {
+
+    // Buffer everything and quickselect when k is at least 1/8 of the candidates
+    private static final int SELECT_FRACTION = 8;
+
+    private final int k;
+    private final boolean select;
+    private final double[] distances;
+    private final int[] rows;
+    private int size;
+    private boolean finished;
+
+    public NearestNeighbors(int k, int candidates) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be positive: " + k);
+        }
+        this.k = k;
+        this.select = (long) k * SELECT_FRACTION >= candidates;
+        int capacity = select ? Math.max(candidates, 1) : k;
+        this.distances = new double[capacity];
+        this.rows = new int[capacity];
+    }
+
+    public void reset() {
+        size = 0;
+        finished = false;
+    }
+
+    public void offer(double distance, int row) {
+        if (select) {
+            if (size == distances.length) {
+                throw new IllegalStateException("More candidates than the selector was sized for");
+            }
+            distances[size] = distance;
+            rows[size] = row;
+            size++;
+        } else if (size < k) {
+            distances[size] = distance;
+            rows[size] = row;
+            siftUp(size++);
+        } else if (before(distance, row, distances[0], rows[0])) {
+            distances[0] = distance;
+            rows[0] = row;
+            siftDown(0, size);
+        }
+    }
+
+    // Distance a candidate has to beat to get in: the current k-th nearest, infinity while fewer than k are known
+    public double bound() {
+        return select || size < k ? Double.POSITIVE_INFINITY : distances[0];
+    }
+
+    // Sorts the selected neighbors nearest first; distance(i)/row(i) read them afterwards
+    public void finish() {
+        if (select && size > k) {
+            quickselect(0, size - 1, k - 1);
+            size = k;
+        }
+        // Heapsort in place: repeatedly move the farthest to the end
+        for (int i = 0; i < size; i++) {
+            siftUp(i);
+        }
+        for (int end = size - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+        finished = true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    public double distance(int i) {
+        checkFinished();
+        return distances[i];
+    }
+
+    public int row(int i) {
+        checkFinished();
+        return rows[i];
+    }
+
+    private void checkFinished() {
+        if (!finished) {
+            throw new IllegalStateException("finish() has not been called");
+        }
+    }
+
+    // Candidate order: smaller distance first, then smaller row
+    private static boolean before(double distance1, int row1, double distance2, int row2) {
+        return distance1 < distance2 || (distance1 == distance2 && row1 < row2);
+    }
+
+    private boolean before(int i, int j) {
+        return before(distances[i], rows[i], distances[j], rows[j]);
+    }
+
+    // Max-heap on [0, size): the farthest candidate at the root
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(parent, i)) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i, int end) {
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= end) {
+                return;
+            }
+            if (child + 1 < end && before(child, child + 1)) {
+                child++;
+            }
+            if (!before(i, child)) {
+                return;
+            }
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    // Rearranges [left, right] so that position n holds the candidate it would have when sorted,
+    // with every nearer candidate before it
+    private void quickselect(int left, int right, int n) {
+        while (left < right) {
+            int pivot = partition(left, right, left + (right - left) / 2);
+            if (pivot == n) {
+                return;
+            } else if (n < pivot) {
+                right = pivot - 1;
+            } else {
+                left = pivot + 1;
+            }
+        }
+    }
+
+    private int partition(int left, int right, int pivotIndex) {
+        swap(pivotIndex, right);
+        int store = left;
+        for (int i = left; i < right; i++) {
+            if (before(i, right)) {
+                swap(i, store++);
+            }
+        }
+        swap(store, right);
+        return store;
+    }
+
+    private void swap(int i, int j) {
+        double distance = distances[i];
+        distances[i] = distances[j];
+        distances[j] = distance;
+        int row = rows[i];
+        rows[i] = rows[j];
+        rows[j] = row;
+    }
+}
@@ -0,0 +1,79 @@
+package org.example;
+
+// Block kernels for the numeric features: one query value against a column slice of training rows, folded into
+// per-row metric states. SCALAR uses plain loops; SIMD uses vector lanes and needs the jdk.incubator.vector module
+// (run with --add-modules jdk.incubator.vector). Both give bit-identical states. Each KNN picks its kernels
+// (KNN.setNumericKernels), so models evaluated side by side do not affect each other. SCALAR is the default: on
+// the Reuters columns SIMD measured slower, -Dknn.vector=true makes SIMD the default where it is available.
+public enum NumericKernels {
+
+    SCALAR {
+        @Override
+        public void sumOfSquares(double[] states, double query, double[] column, int from, int to) {
+            for (int i = 0, row = from; row < to; i++, row++) {
+                double distance = query - column[row];
+                states[i] = Math.fma(distance, distance, states[i]);
+            }
+        }
+
+        @Override
+        public void sumOfAbs(double[] states, double query, double[] column, int from, int to) {
+            for (int i = 0, row = from; row < to; i++, row++) {
+                states[i] += Math.abs(query - column[row]);
+            }
+        }
+
+        @Override
+        public void maxOfAbs(double[] states, double query, double[] column, int from, int to) {
+            for (int i = 0, row = from; row < to; i++, row++) {
+                double abs = Math.abs(query - column[row]);
+                states[i] = abs > states[i] ? abs : states[i];
+            }
+        }
+    },
+
+    SIMD {
+        @Override
+        public void sumOfSquares(double[] states, double query, double[] column, int from, int to) {
+            VectorKernels.sumOfSquares(states, query, column, from, to);
+        }
+
+        @Override
+        public void sumOfAbs(double[] states, double query, double[] column, int from, int to) {
+            VectorKernels.sumOfAbs(states, query, column, from, to);
+        }
+
+        @Override
+        public void maxOfAbs(double[] states, double query, double[] column, int from, int to) {
+            VectorKernels.maxOfAbs(states, query, column, from, to);
+        }
+    };
+
+    private static final boolean VECTOR_AVAILABLE = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    public static boolean isVectorAvailable() {
+        return VECTOR_AVAILABLE;
+    }
+
+    // Kernels of a new KNN: SCALAR unless -Dknn.vector=true and the incubator module is present
+    public static NumericKernels defaultKernels() {
+        return VECTOR_AVAILABLE && Boolean.getBoolean("knn.vector") ? SIMD : SCALAR;
+    }
+
+    // Fails for SIMD without the incubator module
+    public NumericKernels requireAvailable() {
+        if (this == SIMD && !VECTOR_AVAILABLE) {
+            throw new IllegalStateException("jdk.incubator.vector is not available, run with --add-modules jdk.incubator.vector");
+        }
+        return this;
+    }
+
+    // states[i] = fma(d, d, states[i]) with d = query - column[from + i], for i in [0, to - from)
+    public abstract void sumOfSquares(double[] states, double query, double[] column, int from, int to);
+
+    // states[i] += |query - column[from + i]|
+    public abstract void sumOfAbs(double[] states, double query, double[] column, int from, int to);
+
+    // states[i] = max(states[i], |query - column[from + i]|)
+    public abstract void maxOfAbs(double[] states, double query, double[] column, int from, int to);
+}
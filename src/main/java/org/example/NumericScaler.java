@@ -0,0 +1,74 @@
+package org.example;
+
+// Z-score scaling of the numeric features (dayOfWeek8, wordCount9), fitted on one training split. Immutable:
+// scale returns scaled copies of feature vectors and leaves the loaded documents untouched, so models with
+// different splits can share one corpus, also across threads.
+public final class NumericScaler {
+
+    // Leaves the values as they are
+    public static final NumericScaler IDENTITY = new NumericScaler(0.0, 1.0, 0.0, 1.0);
+
+    private final double dayOfWeekMean;
+    private final double dayOfWeekFactor;
+    private final double wordCountMean;
+    private final double wordCountFactor;
+
+    private NumericScaler(double dayOfWeekMean, double dayOfWeekFactor, double wordCountMean, double wordCountFactor) {
+        this.dayOfWeekMean = dayOfWeekMean;
+        this.dayOfWeekFactor = dayOfWeekFactor;
+        this.wordCountMean = wordCountMean;
+        this.wordCountFactor = wordCountFactor;
+    }
+
+    // Mean and (population) standard deviation of each numeric feature over the store's unscaled training rows;
+    // a feature without spread is scaled to 0
+    public static NumericScaler fit(TrainingStore store) {
+        int size = store.size();
+        double dayOfWeekSum = 0.0;
+        double wordCountSum = 0.0;
+        for (int row = 0; row < size; row++) {
+            FeatureVector features = store.getDocument(row).getFeatures();
+            dayOfWeekSum += features.getDayOfWeek8();
+            wordCountSum += features.getWordCount9();
+        }
+        double dayOfWeekMean = dayOfWeekSum / size;
+        double wordCountMean = wordCountSum / size;
+
+        double dayOfWeekSumSquaredDiff = 0.0;
+        double wordCountSumSquaredDiff = 0.0;
+        for (int row = 0; row < size; row++) {
+            FeatureVector features = store.getDocument(row).getFeatures();
+            double dayOfWeekDifference = features.getDayOfWeek8() - dayOfWeekMean;
+            double wordCountDifference = features.getWordCount9() - wordCountMean;
+            dayOfWeekSumSquaredDiff += dayOfWeekDifference * dayOfWeekDifference;
+            wordCountSumSquaredDiff += wordCountDifference * wordCountDifference;
+        }
+        double dayOfWeekStdDev = Math.sqrt(dayOfWeekSumSquaredDiff / size);
+        double wordCountStdDev = Math.sqrt(wordCountSumSquaredDiff / size);
+
+        return new NumericScaler(dayOfWeekMean, dayOfWeekStdDev == 0 ? 0 : 1 / dayOfWeekStdDev,
+                wordCountMean, wordCountStdDev == 0 ? 0 : 1 / wordCountStdDev);
+    }
+
+    public double scaleDayOfWeek(double dayOfWeek) {
+        return (dayOfWeek - dayOfWeekMean) * dayOfWeekFactor;
+    }
+
+    public double scaleWordCount(double wordCount) {
+        return (wordCount - wordCountMean) * wordCountFactor;
+    }
+
+    // The vector itself for IDENTITY, otherwise a copy with scaled numeric features sharing its text features
+    public FeatureVector scale(FeatureVector features) {
+        if (this == IDENTITY) {
+            return features;
+        }
+        return features.withNumeric(scaleDayOfWeek(features.getDayOfWeek8()), scaleWordCount(features.getWordCount9()));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("NumericScaler{dayOfWeek: mean %.4f, factor %.4f; wordCount: mean %.4f, factor %.4f}",
+                dayOfWeekMean, dayOfWeekFactor, wordCountMean, wordCountFactor);
+    }
+}
@@ -0,0 +1,144 @@
+package org.example;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.jsoup.select.Elements;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Streams the REUTERS elements of an .sgm file one at a time. The file is read in blocks and only the text of
+// the current element is buffered (text between elements is dropped as it is read). parse turns one element
+// into a ReutersRecord with jsoup's XML parser, separately from reading so that it can run on another thread.
+// Every & is escaped first, as for the former whole-file parse, so entities stay as written and the field texts
+// are the same. Memory is bounded by one element instead of the file, its escaped copy and its DOM.
+public final class ReutersReader implements Closeable {
+
+    private static final String START_TAG = "<REUTERS";
+    private static final String END_TAG = "</REUTERS>";
+    private static final int BLOCK_SIZE = 8192;
+
+    private final Reader reader;
+    private final char[] block = new char[BLOCK_SIZE];
+    private final StringBuilder buffer = new StringBuilder();
+    private boolean endOfInput;
+
+    public ReutersReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    // Decodes with the platform charset, malformed bytes replaced, as new String(bytes) does
+    public static ReutersReader open(Path file) throws IOException {
+        return new ReutersReader(new InputStreamReader(Files.newInputStream(file), Charset.defaultCharset()));
+    }
+
+    // Text of the next element, from <REUTERS to </REUTERS>; null after the last
+    public String nextElement() throws IOException {
+        int start = findStart();
+        if (start < 0) {
+            return null;
+        }
+        buffer.delete(0, start);
+
+        // An element left open at the end of the file runs to the end, as the parser would close it there
+        int end = findEnd(START_TAG.length());
+        int length = end < 0 ? buffer.length() : end + END_TAG.length();
+        String element = buffer.substring(0, length);
+        buffer.delete(0, length);
+        return element;
+    }
+
+    public static ReutersRecord parse(String element) {
+        Document document = Jsoup.parse(element.replace("&", "&amp;"), "", Parser.xmlParser());
+        Element reuters = document.selectFirst("REUTERS");
+        if (reuters == null) {
+            throw new IllegalArgumentException("Not a REUTERS element: " + element);
+        }
+        return new ReutersRecord(
+                reuters.attr("NEWID"),
+                reuters.select("TITLE").text(),
+                reuters.select("BODY").text(),
+                reuters.select("AUTHOR").text(),
+                reuters.select("DATELINE").text(),
+                reuters.select("DATE").text(),
+                texts(reuters.select("TOPICS D")),
+                texts(reuters.select("PLACES D"))
+        );
+    }
+
+    private static List<String> texts(Elements elements) {
+        List<String> texts = new ArrayList<>(elements.size());
+        for (Element element : elements) {
+            texts.add(element.text());
+        }
+        return texts;
+    }
+
+    // Index of the next start tag in the buffer, -1 at the end of the input
+    private int findStart() throws IOException {
+        int from = 0;
+        while (true) {
+            int index = buffer.indexOf(START_TAG, from);
+            if (index < 0) {
+                // Keep only what could be the beginning of a start tag
+                buffer.delete(0, Math.max(0, buffer.length() - (START_TAG.length() - 1)));
+                from = 0;
+                if (!fill()) {
+                    return -1;
+                }
+                continue;
+            }
+            int after = index + START_TAG.length();
+            if (after == buffer.length() && fill()) {
+                continue;
+            }
+            // <REUTERS followed by whitespace, > or /, not e.g. <REUTERSX
+            if (after == buffer.length() || isTagNameEnd(buffer.charAt(after))) {
+                return index;
+            }
+            from = index + 1;
+        }
+    }
+
+    // Index of the next end tag in the buffer from the given position, -1 at the end of the input
+    private int findEnd(int from) throws IOException {
+        while (true) {
+            int index = buffer.indexOf(END_TAG, from);
+            if (index >= 0) {
+                return index;
+            }
+            from = Math.max(from, buffer.length() - (END_TAG.length() - 1));
+            if (!fill()) {
+                return -1;
+            }
+        }
+    }
+
+    private boolean fill() throws IOException {
+        if (endOfInput) {
+            return false;
+        }
+        int read = reader.read(block);
+        if (read < 0) {
+            endOfInput = true;
+            return false;
+        }
+        buffer.append(block, 0, read);
+        return true;
+    }
+
+    private static boolean isTagNameEnd(char c) {
+        return c == '>' || c == '/' || Character.isWhitespace(c);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,68 @@
+package org.example;
+
+import java.util.List;
+
+// The fields of one REUTERS element that feature extraction and labelling use. Texts are those of jsoup's
+// Element.text() (whitespace collapsed and trimmed), "" for a missing element.
+public final class ReutersRecord {
+
+    private final String newId;
+    private final String title;
+    private final String body;
+    private final String author;
+    private final String dateline;
+    private final String date;
+    private final List<String> topics;
+    private final List<String> places;
+
+    public ReutersRecord(String newId, String title, String body, String author, String dateline, String date,
+                         List<String> topics, List<String> places) {
+        this.newId = newId;
+        this.title = title;
+        this.body = body;
+        this.author = author;
+        this.dateline = dateline;
+        this.date = date;
+        this.topics = List.copyOf(topics);
+        this.places = List.copyOf(places);
+    }
+
+    public String getNewId() {
+        return newId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public String getDateline() {
+        return dateline;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    // Texts of the TOPICS D elements, in document order
+    public List<String> getTopics() {
+        return topics;
+    }
+
+    // Texts of the PLACES D elements, in document order
+    public List<String> getPlaces() {
+        return places;
+    }
+
+    @Override
+    public String toString() {
+        return "ReutersRecord{newId=" + newId + ", title=" + title + ", places=" + places + "}";
+    }
+}
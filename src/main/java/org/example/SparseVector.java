@@ -0,0 +1,92 @@
+package org.example;
+
+import java.util.Arrays;
+
+// Frequency vector with only its non-zero entries: ascending indices, their counts and the cached L2 norm.
+// Cosine similarity of two vectors is one merge-join over the indices divided by both norms. Counts are kept
+// as integers so the dot product and norms are exact sums, as with the frequency maps they replace.
+public final class SparseVector {
+
+    public static final SparseVector EMPTY = new SparseVector(new int[0], new int[0]);
+
+    private final int[] indices;
+    private final int[] counts;
+    private final double norm;
+
+    private SparseVector(int[] indices, int[] counts) {
+        this.indices = indices;
+        this.counts = counts;
+        double sumOfSquares = 0.0;
+        for (int count : counts) {
+            sumOfSquares += count * count;
+        }
+        this.norm = Math.sqrt(sumOfSquares);
+    }
+
+    // Counts how often each index occurs; the array is sorted in place
+    public static SparseVector countOf(int[] occurrences) {
+        if (occurrences.length == 0) {
+            return EMPTY;
+        }
+        Arrays.sort(occurrences);
+        int distinct = 1;
+        for (int i = 1; i < occurrences.length; i++) {
+            if (occurrences[i] != occurrences[i - 1]) {
+                distinct++;
+            }
+        }
+
+        int[] indices = new int[distinct];
+        int[] counts = new int[distinct];
+        int entry = 0;
+        indices[0] = occurrences[0];
+        for (int occurrence : occurrences) {
+            if (occurrence != indices[entry]) {
+                indices[++entry] = occurrence;
+            }
+            counts[entry]++;
+        }
+        return new SparseVector(indices, counts);
+    }
+
+    // Character frequencies of a string, indexed by char
+    public static SparseVector ofChars(String str) {
+        int[] chars = new int[str.length()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = str.charAt(i);
+        }
+        return countOf(chars);
+    }
+
+    public double dot(SparseVector other) {
+        double dotProduct = 0.0;
+        int i = 0;
+        int j = 0;
+        while (i < indices.length && j < other.indices.length) {
+            if (indices[i] < other.indices[j]) {
+                i++;
+            } else if (indices[i] > other.indices[j]) {
+                j++;
+            } else {
+                dotProduct += counts[i++] * other.counts[j++];
+            }
+        }
+        return dotProduct;
+    }
+
+    // 0 when either vector is empty
+    public double cosine(SparseVector other) {
+        if (norm == 0 || other.norm == 0) {
+            return 0;
+        }
+        return dot(other) / (norm * other.norm);
+    }
+
+    public double norm() {
+        return norm;
+    }
+
+    public int nonZeros() {
+        return indices.length;
+    }
+}
@@ -0,0 +1,171 @@
+package org.example;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+
+// Decorator that precomputes the wrapped measure over the observed vocabulary of every single-valued
+// text feature (0, 2, 3, 4, 6, 7). Comparing two encoded values is then one array read. Vocabularies whose
+// full matrix would exceed the dense budget get a row cache instead, filled the first time a value is queried.
+// Everything the tables do not cover, notably the list features 1 and 5, goes through a CachingTextMeasure.
+public class TabulatedTextMeasure extends ForwardingTextMeasure {
+
+    private static final long DEFAULT_MAX_DENSE_BYTES = 64L << 20;
+
+    private final CachingTextMeasure cache;
+    private final Vocabulary[] vocabularies;
+    private final SimilarityTable[] tables;
+
+    public TabulatedTextMeasure(FeatureDictionary dictionary, TextMeasure delegate) {
+        this(dictionary, delegate, DEFAULT_MAX_DENSE_BYTES);
+    }
+
+    public TabulatedTextMeasure(FeatureDictionary dictionary, TextMeasure delegate, long maxDenseBytes) {
+        super(delegate);
+        this.cache = new CachingTextMeasure(delegate);
+        int[] features = FeatureDictionary.CATEGORICAL_FEATURES;
+        this.vocabularies = new Vocabulary[features.length];
+        this.tables = new SimilarityTable[features.length];
+        for (int i = 0; i < features.length; i++) {
+            vocabularies[i] = dictionary.vocabulary(features[i]);
+        }
+
+        // Tables are built concurrently, and so are the rows of each dense table
+        IntStream.range(0, features.length).parallel()
+                .forEach(i -> tables[i] = new SimilarityTable(vocabularies[i], delegate, maxDenseBytes));
+    }
+
+    @Override
+    public double calculate(List<String> list1, List<String> list2) {
+        return cache.calculate(list1, list2);
+    }
+
+    @Override
+    public double calculate(String str1, String str2) {
+        return cache.calculate(str1, str2);
+    }
+
+    @Override
+    public double calculate(Vocabulary vocabulary, int id1, int id2) {
+        for (int i = 0; i < vocabularies.length; i++) {
+            if (vocabularies[i] == vocabulary) {
+                return tables[i].get(id1, id2);
+            }
+        }
+        return cache.calculate(vocabulary, id1, id2);
+    }
+
+    // Table values are exact, which the bounded form always allows
+    @Override
+    public double calculate(Vocabulary vocabulary, int id1, int id2, double minSimilarity) {
+        return calculate(vocabulary, id1, id2);
+    }
+
+    @Override
+    public double calculate(Vocabulary vocabulary, int[] ids1, int[] ids2) {
+        return cache.calculate(vocabulary, ids1, ids2);
+    }
+
+    @Override
+    public double calculate(Vocabulary vocabulary, int[] ids1, int[] ids2, double minSimilarity) {
+        return cache.calculate(vocabulary, ids1, ids2, minSimilarity);
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName() + " (tabulated)";
+    }
+
+    // Cache of the values the tables do not cover
+    public CachingTextMeasure getCache() {
+        return cache;
+    }
+
+    public long memoryBytes() {
+        long bytes = 0;
+        for (SimilarityTable table : tables) {
+            bytes += table.memoryBytes();
+        }
+        return bytes;
+    }
+
+    // Layout and current memory use of every table
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(getName()).append(" tables:");
+        for (int i = 0; i < tables.length; i++) {
+            sb.append(String.format("%n  feature %d: %s", FeatureDictionary.CATEGORICAL_FEATURES[i], tables[i]));
+        }
+        sb.append(String.format("%n  total: %.1f KB", memoryBytes() / 1024.0));
+        sb.append(String.format("%n  %s", cache));
+        return sb.toString();
+    }
+
+    private static final class SimilarityTable {
+        private final Vocabulary vocabulary;
+        private final TextMeasure measure;
+        private final int size;
+        // Row-major size x size matrix, or null when rows are cached lazily
+        private final double[] dense;
+        private final AtomicReferenceArray<double[]> rows;
+
+        SimilarityTable(Vocabulary vocabulary, TextMeasure measure, long maxDenseBytes) {
+            this.vocabulary = vocabulary;
+            this.measure = measure;
+            this.size = vocabulary.size();
+
+            // The cell count must also fit an array index, whatever the byte budget allows
+            long cells = (long) size * size;
+            if (cells <= Integer.MAX_VALUE && cells * Double.BYTES <= maxDenseBytes) {
+                this.dense = new double[(int) cells];
+                this.rows = null;
+                // Every cell is evaluated in its own argument order, so lookups match direct calls exactly
+                IntStream.range(0, size).parallel().forEach(id1 -> {
+                    for (int id2 = 0; id2 < size; id2++) {
+                        dense[id1 * size + id2] = measure.calculate(vocabulary, id1, id2);
+                    }
+                });
+            } else {
+                this.dense = null;
+                this.rows = new AtomicReferenceArray<>(size);
+            }
+        }
+
+        double get(int id1, int id2) {
+            if (dense != null) {
+                return dense[id1 * size + id2];
+            }
+            double[] row = rows.get(id1);
+            if (row == null) {
+                row = new double[size];
+                for (int id = 0; id < size; id++) {
+                    row[id] = measure.calculate(vocabulary, id1, id);
+                }
+                // Another thread may have filled the same row meanwhile; both copies are identical
+                rows.compareAndSet(id1, null, row);
+            }
+            return row[id2];
+        }
+
+        long memoryBytes() {
+            if (dense != null) {
+                return (long) dense.length * Double.BYTES;
+            }
+            long filled = 0;
+            for (int id = 0; id < size; id++) {
+                if (rows.get(id) != null) {
+                    filled++;
+                }
+            }
+            return filled * size * Double.BYTES;
+        }
+
+        @Override
+        public String toString() {
+            if (dense != null) {
+                return String.format("dense %dx%d, %.1f KB", size, size, memoryBytes() / 1024.0);
+            }
+            return String.format("row cache %dx%d, %.1f KB filled", size, size, memoryBytes() / 1024.0);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package org.example;
+
+// A text measure that compares multi-valued features by their term-frequency vectors (see
+// FeatureVector.getTermVector) instead of their ids. Decorators forward usesTermVectors, and callers reach this
+// hook through getBaseMeasure once usesTermVectors says it is there.
+public interface TermVectorMeasure extends TextMeasure {
+
+    double calculate(SparseVector terms1, SparseVector terms2);
+
+    @Override
+    default boolean usesTermVectors() {
+        return true;
+    }
+}
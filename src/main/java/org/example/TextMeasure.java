@@ -5,4 +5,52 @@ import java.util.List;
 public interface TextMeasure {
     double calculate(List<String> list1, List<String> list2);
     double  calculate(String list1, String list2);
+
+    // Encoded single values: ids from the feature's vocabulary
+    default double calculate(Vocabulary vocabulary, int id1, int id2) {
+        return calculate(vocabulary.valueOf(id1), vocabulary.valueOf(id2));
+    }
+
+    // Encoded multi-valued features: sorted id arrays from the feature's vocabulary
+    default double calculate(Vocabulary vocabulary, int[] ids1, int[] ids2) {
+        return calculate(vocabulary.valuesOf(ids1), vocabulary.valuesOf(ids2));
+    }
+
+    // Whether 1 - similarity is a (pseudo)metric on every feature: non-negative, symmetric and satisfying the
+    // triangle inequality. Metric indexes such as VantagePointTree rely on it.
+    default boolean isMetric() {
+        return false;
+    }
+
+    // Similarity of any two multi-valued features that share no value, not even ignoring case, at least one
+    // of them non-empty; NaN when it is not a constant. InvertedIndex uses it for the rows a query shares no token with.
+    default double disjointSimilarity() {
+        return Double.NaN;
+    }
+
+    // Whether multi-valued features are compared by their term-frequency vectors instead of their ids; the base
+    // measure is then a TermVectorMeasure
+    default boolean usesTermVectors() {
+        return false;
+    }
+
+    // Bounded forms for nearest-neighbor pruning: when the exact similarity is below minSimilarity, a measure
+    // may stop early and return any value in [exact, minSimilarity) instead
+    default double calculate(Vocabulary vocabulary, int id1, int id2, double minSimilarity) {
+        return calculate(vocabulary, id1, id2);
+    }
+
+    default double calculate(Vocabulary vocabulary, int[] ids1, int[] ids2, double minSimilarity) {
+        return calculate(vocabulary, ids1, ids2);
+    }
+
+    // Measure a decorator (cache, tables) finally delegates to, the measure itself otherwise
+    default TextMeasure getBaseMeasure() {
+        return this;
+    }
+
+    // Name shown in experiment reports
+    default String getName() {
+        return getClass().getSimpleName();
+    }
 }
@@ -0,0 +1,73 @@
+package org.example;
+
+import java.util.*;
+
+// A text split into whitespace-separated tokens in one pass, with the frequencies of their lower-case forms.
+// Tokens are exactly those of text.split("\\s+"): whitespace is [ \t\n\x0B\f\r], leading whitespace yields an
+// empty first token, text of only whitespace has no tokens and empty text the single token "".
+public final class TokenizedText {
+
+    private final String text;
+    private final List<String> tokens;
+    // Lower-case term -> occurrences
+    private final Map<String, Integer> termFrequencies;
+
+    private TokenizedText(String text, List<String> tokens, Map<String, Integer> termFrequencies) {
+        this.text = text;
+        this.tokens = tokens;
+        this.termFrequencies = termFrequencies;
+    }
+
+    public static TokenizedText of(String text) {
+        List<String> tokens = new ArrayList<>();
+        int length = text.length();
+        int start = 0;
+        while (start < length) {
+            while (start < length && isWhitespace(text.charAt(start))) {
+                start++;
+            }
+            int end = start;
+            while (end < length && !isWhitespace(text.charAt(end))) {
+                end++;
+            }
+            if (end > start) {
+                tokens.add(text.substring(start, end));
+            }
+            start = end;
+        }
+        if (length == 0) {
+            tokens.add("");
+        } else if (!tokens.isEmpty() && isWhitespace(text.charAt(0))) {
+            tokens.add(0, "");
+        }
+
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        for (String token : tokens) {
+            termFrequencies.merge(token.toLowerCase(), 1, Integer::sum);
+        }
+        return new TokenizedText(text, Collections.unmodifiableList(tokens), termFrequencies);
+    }
+
+    // The \s class of java.util.regex
+    static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public List<String> getTokens() {
+        return tokens;
+    }
+
+    // Occurrences of a lower-case term
+    public int frequency(String lowerTerm) {
+        return termFrequencies.getOrDefault(lowerTerm, 0);
+    }
+
+    // Number of words, 0 for empty text
+    public int wordCount() {
+        return text.isEmpty() ? 0 : tokens.size();
+    }
+}
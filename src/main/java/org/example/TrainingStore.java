@@ -0,0 +1,165 @@
+package org.example;
+
+import java.util.*;
+
+// Column-wise (struct-of-arrays) copy of a training split. Every feature lives in its own primitive
+// array indexed by row, so a scan over the training set reads each column sequentially.
+// The numeric columns hold the values of the store's NumericScaler; the documents are never modified.
+public class TrainingStore {
+
+    private final int size;
+    private final FeatureDictionary dictionary;
+    private final Document[] documents;
+    private final NumericScaler scaler;
+    // Features of each row encoded with the dictionary, numeric values as loaded; shared by the scaled views
+    private final FeatureVector[] encoded;
+    // Features of each row as the store sees them, i.e. with scaled numeric values
+    private final FeatureVector[] features;
+
+    private final double[] dayOfWeek8;
+    private final double[] wordCount9;
+    // Indexed by feature index, then by row; null for features of the other kind
+    private final int[][] categoryIds = new int[FeatureDictionary.FEATURE_COUNT][];
+    private final int[][][] categoryIdSets = new int[FeatureDictionary.FEATURE_COUNT][][];
+    private final SparseVector[][] termVectors = new SparseVector[FeatureDictionary.FEATURE_COUNT][];
+
+    private final int[] labelIds;
+    private final String[] labels;
+
+    public TrainingStore(List<Document> trainingDocuments, FeatureDictionary dictionary) {
+        this.size = trainingDocuments.size();
+        this.dictionary = dictionary;
+        this.documents = trainingDocuments.toArray(new Document[0]);
+        this.scaler = NumericScaler.IDENTITY;
+        this.encoded = new FeatureVector[size];
+        this.features = encoded;
+
+        this.dayOfWeek8 = new double[size];
+        this.wordCount9 = new double[size];
+        for (int index : FeatureDictionary.CATEGORICAL_FEATURES) {
+            categoryIds[index] = new int[size];
+        }
+        for (int index : FeatureDictionary.MULTI_VALUED_FEATURES) {
+            categoryIdSets[index] = new int[size][];
+            termVectors[index] = new SparseVector[size];
+        }
+
+        // Label ids follow the sorted labels, so vote ties resolve the same way on every run and JVM
+        Set<String> labelSet = new TreeSet<>();
+        for (Document doc : documents) {
+            labelSet.add(doc.getTargetLabel());
+        }
+        this.labels = labelSet.toArray(new String[0]);
+        Map<String, Integer> labelIndex = new HashMap<>();
+        for (int id = 0; id < labels.length; id++) {
+            labelIndex.put(labels[id], id);
+        }
+        this.labelIds = new int[size];
+
+        for (int row = 0; row < size; row++) {
+            FeatureVector features = dictionary.encode(documents[row].getFeatures());
+            for (int index : FeatureDictionary.CATEGORICAL_FEATURES) {
+                categoryIds[index][row] = features.getCategoryId(index);
+            }
+            for (int index : FeatureDictionary.MULTI_VALUED_FEATURES) {
+                categoryIdSets[index][row] = features.getCategoryIds(index);
+                termVectors[index][row] = features.getTermVector(index);
+            }
+            labelIds[row] = labelIndex.get(documents[row].getTargetLabel());
+            encoded[row] = features;
+            dayOfWeek8[row] = features.getDayOfWeek8();
+            wordCount9[row] = features.getWordCount9();
+        }
+    }
+
+    // Shares the text columns, labels and documents of source; numeric columns and features are scaled
+    private TrainingStore(TrainingStore source, NumericScaler scaler) {
+        this.size = source.size;
+        this.dictionary = source.dictionary;
+        this.documents = source.documents;
+        this.scaler = scaler;
+        this.encoded = source.encoded;
+        this.features = new FeatureVector[size];
+        this.dayOfWeek8 = new double[size];
+        this.wordCount9 = new double[size];
+        System.arraycopy(source.categoryIds, 0, categoryIds, 0, categoryIds.length);
+        System.arraycopy(source.categoryIdSets, 0, categoryIdSets, 0, categoryIdSets.length);
+        System.arraycopy(source.termVectors, 0, termVectors, 0, termVectors.length);
+        this.labelIds = source.labelIds;
+        this.labels = source.labels;
+
+        for (int row = 0; row < size; row++) {
+            features[row] = scaler.scale(encoded[row]);
+            dayOfWeek8[row] = features[row].getDayOfWeek8();
+            wordCount9[row] = features[row].getWordCount9();
+        }
+    }
+
+    // View of the same split with the numeric features scaled from the documents' original values
+    public TrainingStore scaled(NumericScaler scaler) {
+        return new TrainingStore(this, scaler);
+    }
+
+    public NumericScaler getScaler() {
+        return scaler;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public FeatureDictionary getDictionary() {
+        return dictionary;
+    }
+
+    // Loaded document of a row, with its original numeric values
+    public Document getDocument(int row) {
+        return documents[row];
+    }
+
+    // Features of a row with the store's scaling applied
+    public FeatureVector getFeatures(int row) {
+        return features[row];
+    }
+
+    public double[] getNumericColumn(int featureIndex) {
+        return switch (featureIndex) {
+            case 8 -> dayOfWeek8;
+            case 9 -> wordCount9;
+            default -> throw new IllegalArgumentException("Not a numeric feature index: " + featureIndex);
+        };
+    }
+
+    public int[] getCategoryColumn(int featureIndex) {
+        if (categoryIds[featureIndex] == null) {
+            throw new IllegalArgumentException("Not a categorical feature index: " + featureIndex);
+        }
+        return categoryIds[featureIndex];
+    }
+
+    public int[][] getCategorySetColumn(int featureIndex) {
+        if (categoryIdSets[featureIndex] == null) {
+            throw new IllegalArgumentException("Not a multi-valued feature index: " + featureIndex);
+        }
+        return categoryIdSets[featureIndex];
+    }
+
+    public SparseVector[] getTermVectorColumn(int featureIndex) {
+        if (termVectors[featureIndex] == null) {
+            throw new IllegalArgumentException("Not a multi-valued feature index: " + featureIndex);
+        }
+        return termVectors[featureIndex];
+    }
+
+    public int[] getLabelIds() {
+        return labelIds;
+    }
+
+    public String getLabel(int labelId) {
+        return labels[labelId];
+    }
+
+    public int labelCount() {
+        return labels.length;
+    }
+}
@@ -1,6 +1,7 @@
 package org.example;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 public class UI {
@@ -28,7 +29,7 @@ public class UI {
         double splitRatio = promptForSplitRatio();
         Set<Integer> selectedFeatures = promptForFeatures();
         DistanceMetric metric = promptForDistanceMetric();
-        TextMeasure textMeasure = promptForTextMeasure();
+        TextMeasure textMeasure = new TabulatedTextMeasure(FeatureDictionary.of(documents), promptForTextMeasure());
         runClassifier(k, splitRatio, selectedFeatures, metric, textMeasure, documents);
     }
 
@@ -189,6 +190,144 @@ public class UI {
 
     static KNN runClassifier(int k, double splitRatio, Set<Integer> features,
                               DistanceMetric metric, TextMeasure textMeasure, List<org.example.Document> documents) {
+        return runClassifier(k, splitRatio, features, metric, textMeasure, documents, false);
+    }
+
+    // Same, optionally searching neighbors with the exact metric index and reporting its savings
+    static KNN runClassifier(int k, double splitRatio, Set<Integer> features, DistanceMetric metric,
+                              TextMeasure textMeasure, List<org.example.Document> documents, boolean metricIndex) {
+        printConfiguration(k, splitRatio, features, metric, textMeasure);
+
+        KNN classifier = new KNN(k, splitRatio, features, metric, textMeasure);
+        classifier.setUseMetricIndex(metricIndex);
+        classifier.splitDataset(documents);
+        classifier.normalizeNumericalFeatures();
+        classifier.evaluateModel(ForkJoinPool.commonPool());
+
+//        printResults(classifier.getResult());
+        printLatexResults(classifier.getResult());
+        if (metricIndex) {
+            System.out.println("Neighbor search: " + classifier.getIndexReport());
+        }
+
+        return classifier;
+    }
+
+    // Evaluates the same split exactly and with MinHash LSH candidates, and reports what the approximation costs
+    static KNN runApproximate(int k, double splitRatio, Set<Integer> features, DistanceMetric metric,
+                              TextMeasure textMeasure, List<org.example.Document> documents, int bands, int rowsPerBand) {
+        printConfiguration(k, splitRatio, features, metric, textMeasure);
+
+        KNN classifier = new KNN(k, splitRatio, features, metric, textMeasure);
+        classifier.splitDataset(documents);
+        classifier.normalizeNumericalFeatures();
+
+        long start = System.nanoTime();
+        classifier.evaluateModel(ForkJoinPool.commonPool());
+        long exactNanos = System.nanoTime() - start;
+        EvaluationResult exact = classifier.getResult();
+
+        classifier.setApproximateSearch(bands, rowsPerBand);
+        start = System.nanoTime();
+        classifier.evaluateModel(ForkJoinPool.commonPool());
+        long approximateNanos = System.nanoTime() - start;
+        EvaluationResult approximate = classifier.getResult();
+
+        printLatexResults(approximate);
+        System.out.println("Neighbor search: " + classifier.getIndexReport());
+        System.out.printf("Accuracy %.4f vs %.4f exact (loss %.4f), F1 %.4f vs %.4f exact, %d ms vs %d ms exact%n",
+                approximate.getAccuracy(), exact.getAccuracy(), exact.getAccuracy() - approximate.getAccuracy(),
+                approximate.getF1(), exact.getF1(), approximateNanos / 1_000_000, exactNanos / 1_000_000);
+
+        return classifier;
+    }
+
+    // Evaluates the same split with the scalar and, when available, the SIMD numeric kernels and compares the timings
+    static KNN runKernelBenchmark(int k, double splitRatio, Set<Integer> features, DistanceMetric metric,
+                                  TextMeasure textMeasure, List<org.example.Document> documents) {
+        printConfiguration(k, splitRatio, features, metric, textMeasure);
+
+        KNN classifier = new KNN(k, splitRatio, features, metric, textMeasure);
+        classifier.splitDataset(documents);
+        classifier.normalizeNumericalFeatures();
+
+        long scalarNanos = timeEvaluation(classifier, NumericKernels.SCALAR);
+        EvaluationResult scalar = classifier.getResult();
+        printLatexResults(scalar);
+
+        if (!NumericKernels.isVectorAvailable()) {
+            System.out.printf("Scalar kernels %d ms (SIMD unavailable, run with --add-modules jdk.incubator.vector)%n",
+                    scalarNanos / 1_000_000);
+            return classifier;
+        }
+
+        long vectorNanos = timeEvaluation(classifier, NumericKernels.SIMD);
+        EvaluationResult vector = classifier.getResult();
+        System.out.printf("SIMD kernels %d ms vs %d ms scalar (%.2fx), accuracy %.4f vs %.4f scalar%n",
+                vectorNanos / 1_000_000, scalarNanos / 1_000_000, (double) scalarNanos / Math.max(1, vectorNanos),
+                vector.getAccuracy(), scalar.getAccuracy());
+
+        return classifier;
+    }
+
+    // Best of a few evaluations with the given kernels, after one untimed run to warm up the JIT
+    private static long timeEvaluation(KNN classifier, NumericKernels kernels) {
+        classifier.setNumericKernels(kernels);
+        classifier.evaluateModel(ForkJoinPool.commonPool());
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < 3; run++) {
+            long start = System.nanoTime();
+            classifier.evaluateModel(ForkJoinPool.commonPool());
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    // Greedy forward and backward feature selection on one split, from per-feature distance matrices
+    static void runFeatureSelection(int k, double splitRatio, DistanceMetric metric, TextMeasure textMeasure,
+                                    List<org.example.Document> documents) {
+        Set<Integer> allFeatures = Set.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+        printConfiguration(k, splitRatio, allFeatures, metric, textMeasure);
+
+        KNN classifier = new KNN(k, splitRatio, allFeatures, metric, textMeasure);
+        classifier.splitDataset(documents);
+        classifier.normalizeNumericalFeatures();
+        FeatureDistanceMatrices matrices = new FeatureDistanceMatrices(classifier);
+        FeatureSelection selection = new FeatureSelection(matrices, metric, k, ForkJoinPool.commonPool());
+
+        long start = System.nanoTime();
+        List<FeatureSelection.Step> forward = selection.forward();
+        long forwardNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        List<FeatureSelection.Step> backward = selection.backward();
+        long backwardNanos = System.nanoTime() - start;
+
+        System.out.println("Forward selection (" + forwardNanos / 1_000_000 + " ms, including the matrices):");
+        forward.forEach(step -> System.out.println("  + " + step));
+        System.out.println("Backward elimination (" + backwardNanos / 1_000_000 + " ms):");
+        backward.forEach(step -> System.out.println("  - " + step));
+        System.out.println(matrices);
+    }
+
+    // Prints experiment results in order, with a heading whenever the experiment changes
+    static void printExperimentResults(List<ExperimentResult> results) {
+        String experiment = null;
+        for (ExperimentResult result : results) {
+            ExperimentConfig config = result.getConfig();
+            if (!config.getExperiment().equals(experiment)) {
+                experiment = config.getExperiment();
+                System.out.println("\n==== " + experiment + " ====");
+            }
+            printConfiguration(result.getK(), config.getSplitRatio(), config.getFeatures(), result.getMetric(), config.getTextMeasure());
+            printLatexResults(result.getResult());
+            if (config.usesMetricIndex()) {
+                System.out.println("Neighbor search: " + result.getIndexReport());
+            }
+        }
+    }
+
+    static void printConfiguration(int k, double splitRatio, Set<Integer> features,
+                                   DistanceMetric metric, TextMeasure textMeasure) {
         System.out.println("===== Running KNN Classifier ==============================");
         System.out.println("Configuration:");
         System.out.println("- k = " + k);
@@ -197,41 +336,26 @@ public class UI {
                 .map(String::valueOf)
                 .collect(Collectors.joining(", ")));
         System.out.println("- Distance metric: " + metric.getClass().getSimpleName());
-        System.out.println("- Text measure: " + textMeasure.getClass().getSimpleName());
+        System.out.println("- Text measure: " + textMeasure.getName());
 
         System.out.println("\n");
-
-        KNN classifier = new KNN(k, splitRatio, features, metric, textMeasure);
-        classifier.splitDataset(documents);
-        classifier.normalizeNumericalFeatures();
-        classifier.evaluateModel();
-
-//        printResults(classifier);
-        printLatexResults(classifier);
-
-        return classifier;
     }
 
-
-    static void printResults(KNN classifier) {
+    static void printResults(EvaluationResult result) {
         System.out.println("\nPer-class metrics:");
-        Set<String> categories = classifier.getTestDocuments().stream()
-                .map(Document::getTargetLabel)
-                .collect(Collectors.toSet());
+        Set<String> categories = result.getTestCategories();
 
         for (String category : categories) {
             System.out.printf("Class '%s': Precision = %.4f, Recall = %.4f, F1 = %.4f%n",
-                    category, classifier.getPrecision(category), classifier.getRecall(category), classifier.getF1(category));}
+                    category, result.getPrecision(category), result.getRecall(category), result.getF1(category));}
 
         System.out.println("Overall metrics:");
         System.out.printf("Accuracy = %.4f, Precision = %.4f, Recall = %.4f, F1 = %.4f%n",
-                classifier.getAccuracy(), classifier.getPrecision(), classifier.getRecall(), classifier.getF1());
+                result.getAccuracy(), result.getPrecision(), result.getRecall(), result.getF1());
     }
 
-    static void printLatexResults(KNN classifier) {
-        Set<String> categories = classifier.getTestDocuments().stream()
-                .map(Document::getTargetLabel)
-                .collect(Collectors.toSet());
+    static void printLatexResults(EvaluationResult result) {
+        Set<String> categories = result.getTestCategories();
 
         System.out.println("\\begin{table}[H]\n" +
                 "\\centering\n" +
@@ -243,12 +367,12 @@ public class UI {
 
         for (String category : categories) {
             System.out.printf("%s & - & %.4f & %.4f & %.4f\\\\\n",
-                    category, classifier.getPrecision(category), classifier.getRecall(category), classifier.getF1(category));
+                    category, result.getPrecision(category), result.getRecall(category), result.getF1(category));
             System.out.println("\\hline");
         }
 
         System.out.printf("\\textbf{Średnia ważona} & %.4f & %.4f & %.4f & %.4f\\\\\n",
-                classifier.getAccuracy(), classifier.getPrecision(), classifier.getRecall(), classifier.getF1());
+                result.getAccuracy(), result.getPrecision(), result.getRecall(), result.getF1());
 
         System.out.println("\\hline");
         System.out.println("\\end{tabular}\n" +
@@ -0,0 +1,209 @@
+package org.example;
+
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+// Exact k-nearest-neighbor index over a training store for one metric/measure/feature combination, which must be
+// a true metric. Every inner node splits its rows at the median distance to a vantage point and remembers the
+// distance range of each half; by the triangle inequality a half whose range lies farther than the current k-th
+// nearest distance from the query's distance to the vantage point cannot hold a neighbor and is skipped.
+// Results, including the (distance, row) tie order, are the same as a full scan.
+public class VantagePointTree {
+
+    private static final int LEAF_SIZE = 8;
+    // Pruning only happens beyond this relative margin, so floating-point rounding in the triangle
+    // inequality can never drop a row the full scan would keep
+    private static final double ROUNDING_SLACK = 1e-9;
+
+    private final TrainingStore store;
+    private final DistanceMetric metric;
+    private final TextMeasure textMeasure;
+    private final int[] featureIndices;
+
+    private final int[] rows;
+    // Node arrays: inner nodes have a vantage row, leaves (vantage -1) cover rows[from, to)
+    private final int[] vantage;
+    private final int[] from;
+    private final int[] to;
+    private final int[] inside;
+    private final int[] outside;
+    private final double[] insideMin;
+    private final double[] insideMax;
+    private final double[] outsideMin;
+    private final double[] outsideMax;
+    private int nodeCount;
+    private final int root;
+
+    private final long buildComputations;
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder queryComputations = new LongAdder();
+
+    public VantagePointTree(TrainingStore store, DistanceMetric metric, TextMeasure textMeasure, int[] featureIndices) {
+        this.store = store;
+        this.metric = metric;
+        this.textMeasure = textMeasure;
+        this.featureIndices = featureIndices.clone();
+
+        int size = store.size();
+        this.rows = new int[size];
+        for (int row = 0; row < size; row++) {
+            rows[row] = row;
+        }
+        int capacity = 2 * size + 1;
+        this.vantage = new int[capacity];
+        this.from = new int[capacity];
+        this.to = new int[capacity];
+        this.inside = new int[capacity];
+        this.outside = new int[capacity];
+        this.insideMin = new double[capacity];
+        this.insideMax = new double[capacity];
+        this.outsideMin = new double[capacity];
+        this.outsideMax = new double[capacity];
+
+        double[] distances = new double[size];
+        long[] computations = new long[1];
+        this.root = build(0, size, distances, new Random(42L), computations);
+        this.buildComputations = computations[0];
+    }
+
+    private int build(int start, int end, double[] distances, Random random, long[] computations) {
+        int node = nodeCount++;
+        if (end - start <= LEAF_SIZE) {
+            vantage[node] = -1;
+            from[node] = start;
+            to[node] = end;
+            return node;
+        }
+
+        swap(start, start + random.nextInt(end - start), distances);
+        int vantageRow = rows[start];
+        FeatureVector point = store.getFeatures(vantageRow);
+        for (int i = start + 1; i < end; i++) {
+            distances[i] = metric.calculate(point, store, rows[i], textMeasure, featureIndices);
+        }
+        computations[0] += end - start - 1;
+
+        // Rows before mid are no farther from the vantage point than the rows from mid on
+        int mid = start + 1 + (end - start - 1) / 2;
+        select(start + 1, end - 1, mid, distances);
+
+        vantage[node] = vantageRow;
+        insideMin[node] = min(distances, start + 1, mid);
+        insideMax[node] = max(distances, start + 1, mid);
+        outsideMin[node] = min(distances, mid, end);
+        outsideMax[node] = max(distances, mid, end);
+        inside[node] = build(start + 1, mid, distances, random, computations);
+        outside[node] = build(mid, end, distances, random, computations);
+        return node;
+    }
+
+    // Offers the query's nearest rows to neighbors and finishes it. order is the feature summation order of the
+    // full scan, knownDistances as for DistanceMetric.calculate, so every distance is bit-identical to the scan's.
+    public void search(FeatureVector query, NearestNeighbors neighbors, int[] order, double[][] knownDistances) {
+        neighbors.reset();
+        long computations = search(root, query, neighbors, order, knownDistances);
+        neighbors.finish();
+        queries.increment();
+        queryComputations.add(computations);
+    }
+
+    private long search(int node, FeatureVector query, NearestNeighbors neighbors, int[] order, double[][] knownDistances) {
+        if (vantage[node] < 0) {
+            for (int i = from[node]; i < to[node]; i++) {
+                neighbors.offer(metric.calculate(query, store, rows[i], textMeasure, order, neighbors.bound(), knownDistances), rows[i]);
+            }
+            return to[node] - from[node];
+        }
+
+        // The vantage point's exact distance is needed for the bounds below, so it is never abandoned
+        double distance = metric.calculate(query, store, vantage[node], textMeasure, order, Double.POSITIVE_INFINITY, knownDistances);
+        neighbors.offer(distance, vantage[node]);
+        long computations = 1;
+
+        double insideBound = Math.max(insideMin[node] - distance, distance - insideMax[node]);
+        double outsideBound = Math.max(outsideMin[node] - distance, distance - outsideMax[node]);
+        boolean insideFirst = insideBound <= outsideBound;
+        int first = insideFirst ? inside[node] : outside[node];
+        int second = insideFirst ? outside[node] : inside[node];
+        double firstBound = insideFirst ? insideBound : outsideBound;
+        double secondBound = insideFirst ? outsideBound : insideBound;
+
+        if (reachable(firstBound, neighbors.bound())) {
+            computations += search(first, query, neighbors, order, knownDistances);
+        }
+        if (reachable(secondBound, neighbors.bound())) {
+            computations += search(second, query, neighbors, order, knownDistances);
+        }
+        return computations;
+    }
+
+    private static boolean reachable(double lowerBound, double bound) {
+        return lowerBound <= bound + ROUNDING_SLACK * (1.0 + Math.abs(bound));
+    }
+
+    public int size() {
+        return rows.length;
+    }
+
+    // Share of the query distance computations a full scan would have needed that the tree skipped
+    public double getSavedFraction() {
+        long total = queries.sum() * rows.length;
+        return total == 0 ? 0.0 : 1.0 - (double) queryComputations.sum() / total;
+    }
+
+    @Override
+    public String toString() {
+        long queryCount = queries.sum();
+        return String.format("VP-tree over %d rows (%d nodes, %d distances to build): %d queries, %.1f distances per query, %.2f%% saved",
+                rows.length, nodeCount, buildComputations, queryCount,
+                queryCount == 0 ? 0.0 : (double) queryComputations.sum() / queryCount, 100 * getSavedFraction());
+    }
+
+    // Rearranges [left, right] so that position n holds the row it would have when sorted by distance
+    private void select(int left, int right, int n, double[] distances) {
+        while (left < right) {
+            int pivotIndex = left + (right - left) / 2;
+            double pivot = distances[pivotIndex];
+            swap(pivotIndex, right, distances);
+            int boundary = left;
+            for (int i = left; i < right; i++) {
+                if (distances[i] < pivot) {
+                    swap(i, boundary++, distances);
+                }
+            }
+            swap(boundary, right, distances);
+            if (boundary == n) {
+                return;
+            } else if (n < boundary) {
+                right = boundary - 1;
+            } else {
+                left = boundary + 1;
+            }
+        }
+    }
+
+    private void swap(int i, int j, double[] distances) {
+        int row = rows[i];
+        rows[i] = rows[j];
+        rows[j] = row;
+        double distance = distances[i];
+        distances[i] = distances[j];
+        distances[j] = distance;
+    }
+
+    private static double min(double[] values, int start, int end) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = start; i < end; i++) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+    private static double max(double[] values, int start, int end) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = start; i < end; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+}
@@ -0,0 +1,61 @@
+package org.example;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// SIMD bodies of NumericKernels. Only loaded when the incubator module is present, so the rest of the
+// classifier runs without it. Every lane performs the same operations as the scalar loop.
+final class VectorKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    private VectorKernels() {
+    }
+
+    static void sumOfSquares(double[] states, double query, double[] column, int from, int to) {
+        int length = to - from;
+        int bound = SPECIES.loopBound(length);
+        DoubleVector q = DoubleVector.broadcast(SPECIES, query);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector distance = q.sub(DoubleVector.fromArray(SPECIES, column, from + i));
+            distance.fma(distance, DoubleVector.fromArray(SPECIES, states, i)).intoArray(states, i);
+        }
+        for (; i < length; i++) {
+            double distance = query - column[from + i];
+            states[i] = Math.fma(distance, distance, states[i]);
+        }
+    }
+
+    static void sumOfAbs(double[] states, double query, double[] column, int from, int to) {
+        int length = to - from;
+        int bound = SPECIES.loopBound(length);
+        DoubleVector q = DoubleVector.broadcast(SPECIES, query);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector abs = q.sub(DoubleVector.fromArray(SPECIES, column, from + i)).lanewise(VectorOperators.ABS);
+            DoubleVector.fromArray(SPECIES, states, i).add(abs).intoArray(states, i);
+        }
+        for (; i < length; i++) {
+            states[i] += Math.abs(query - column[from + i]);
+        }
+    }
+
+    static void maxOfAbs(double[] states, double query, double[] column, int from, int to) {
+        int length = to - from;
+        int bound = SPECIES.loopBound(length);
+        DoubleVector q = DoubleVector.broadcast(SPECIES, query);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector abs = q.sub(DoubleVector.fromArray(SPECIES, column, from + i)).lanewise(VectorOperators.ABS);
+            DoubleVector state = DoubleVector.fromArray(SPECIES, states, i);
+            // abs > state ? abs : state, as the scalar fold
+            state.blend(abs, abs.compare(VectorOperators.GT, state)).intoArray(states, i);
+        }
+        for (; i < length; i++) {
+            double abs = Math.abs(query - column[from + i]);
+            states[i] = abs > states[i] ? abs : states[i];
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.example;
+
+import java.util.*;
+
+// Interned values of one categorical feature. Ids follow the natural (lexicographic) order of the values,
+// so a sorted id array is also a sorted value list.
+public class Vocabulary {
+
+    private final String[] values;
+    private final Map<String, Integer> ids;
+    // Character sets of the values, built once: bit c of low/high is set when char c (c < 64 / 64 <= c < 128)
+    // occurs in the value. Values with other chars are not ASCII-only and have no complete mask.
+    private final long[] charMaskLow;
+    private final long[] charMaskHigh;
+    private final boolean[] asciiOnly;
+    // Character frequency vector of every value, and the id of its lower-cased form among all lower-cased values
+    private final SparseVector[] charVectors;
+    private final int[] termIds;
+    private final int termCount;
+
+    public Vocabulary(Collection<String> values) {
+        this.values = new TreeSet<>(values).toArray(new String[0]);
+        this.ids = new HashMap<>();
+        for (int id = 0; id < this.values.length; id++) {
+            ids.put(this.values[id], id);
+        }
+
+        this.charMaskLow = new long[this.values.length];
+        this.charMaskHigh = new long[this.values.length];
+        this.asciiOnly = new boolean[this.values.length];
+        for (int id = 0; id < this.values.length; id++) {
+            String value = this.values[id];
+            boolean ascii = true;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < 64) {
+                    charMaskLow[id] |= 1L << c;
+                } else if (c < 128) {
+                    charMaskHigh[id] |= 1L << (c - 64);
+                } else {
+                    ascii = false;
+                }
+            }
+            asciiOnly[id] = ascii;
+        }
+
+        this.charVectors = new SparseVector[this.values.length];
+        this.termIds = new int[this.values.length];
+        Map<String, Integer> terms = new HashMap<>();
+        for (int id = 0; id < this.values.length; id++) {
+            charVectors[id] = SparseVector.ofChars(this.values[id]);
+            termIds[id] = terms.computeIfAbsent(this.values[id].toLowerCase(), term -> terms.size());
+        }
+        this.termCount = terms.size();
+    }
+
+    // Id of the value, -1 when it is not part of the vocabulary
+    public int idOf(String value) {
+        return ids.getOrDefault(value, -1);
+    }
+
+    public String valueOf(int id) {
+        return values[id];
+    }
+
+    public List<String> valuesOf(int[] ids) {
+        List<String> list = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            list.add(values[id]);
+        }
+        return list;
+    }
+
+    public long charMaskLow(int id) {
+        return charMaskLow[id];
+    }
+
+    public long charMaskHigh(int id) {
+        return charMaskHigh[id];
+    }
+
+    public boolean isAsciiOnly(int id) {
+        return asciiOnly[id];
+    }
+
+    public SparseVector charVector(int id) {
+        return charVectors[id];
+    }
+
+    // Id of the value's lower-cased form, in [0, termCount())
+    public int termIdOf(int id) {
+        return termIds[id];
+    }
+
+    public int termCount() {
+        return termCount;
+    }
+
+    // Case-insensitive term frequencies of a multi-valued feature's ids
+    public SparseVector termVector(int[] ids) {
+        int[] terms = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            terms[i] = termIds[ids[i]];
+        }
+        return SparseVector.countOf(terms);
+    }
+
+    public int size() {
+        return values.length;
+    }
+}
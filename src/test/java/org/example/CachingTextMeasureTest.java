@@ -0,0 +1,114 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Memoized similarities against the measure they decorate, counting how often it is actually asked
+class CachingTextMeasureTest {
+
+    @Test
+    void pairsAreCachedOnceInEitherOrder() {
+        CountingMeasure delegate = new CountingMeasure();
+        CachingTextMeasure cache = new CachingTextMeasure(delegate);
+
+        assertEquals(0.5, cache.calculate("ab", "b"));
+        assertEquals(0.5, cache.calculate("b", "ab"));
+        assertEquals(1.0 / 3, cache.calculate(List.of("opec", "ec"), List.of("ec", "imf")));
+        assertEquals(1.0 / 3, cache.calculate(List.of("ec", "imf"), List.of("opec", "ec")));
+
+        assertEquals(2, delegate.calls);
+        assertEquals(2, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(0.5, cache.getHitRate());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void storedListsAreCopies() {
+        CountingMeasure delegate = new CountingMeasure();
+        CachingTextMeasure cache = new CachingTextMeasure(delegate);
+        List<String> tokens = new ArrayList<>(List.of("opec"));
+
+        assertEquals(1.0, cache.calculate(tokens, List.of("opec")));
+        tokens.set(0, "gatt");
+        assertEquals(0.0, cache.calculate(tokens, List.of("opec")));
+        assertEquals(2, delegate.calls);
+    }
+
+    @Test
+    void sizeStaysBounded() {
+        CountingMeasure delegate = new CountingMeasure();
+        CachingTextMeasure cache = new CachingTextMeasure(delegate, 32);
+
+        for (int i = 0; i < 500; i++) {
+            assertEquals(delegate.calculate("a" + i, "b"), cache.calculate("a" + i, "b"));
+        }
+        assertTrue(cache.size() <= 32, cache.toString());
+        assertEquals(500 - cache.size(), cache.getEvictions());
+        assertThrows(IllegalArgumentException.class, () -> new CachingTextMeasure(delegate, 15));
+    }
+
+    @Test
+    void boundedResultsBelowTheMinimumAreNotCached() {
+        Vocabulary vocabulary = new Vocabulary(List.of("ec", "gatt", "imf", "opec"));
+        int[] ids1 = {vocabulary.idOf("ec"), vocabulary.idOf("opec")};
+        int[] ids2 = {vocabulary.idOf("gatt"), vocabulary.idOf("imf"), vocabulary.idOf("opec")};
+        CountingMeasure delegate = new CountingMeasure();
+        CachingTextMeasure cache = new CachingTextMeasure(delegate);
+
+        // Exact similarity 0.25: cut short below 0.5, so the next caller must get the exact value
+        assertEquals(0.0, cache.calculate(vocabulary, ids1, ids2, 0.5));
+        assertEquals(0.25, cache.calculate(vocabulary, ids1, ids2));
+        assertEquals(0.25, cache.calculate(vocabulary, ids1, ids2, 0.5));
+        assertEquals(2, delegate.calls);
+    }
+
+    @Test
+    void cachedMeasuresMatchTheirDelegate() {
+        FeatureDictionary dictionary = FeatureDictionary.of(TestCorpus.documents());
+        for (TextMeasure measure : List.of(new JaccardTextMeasure(), new LevenshteinTextMeasure(), new CosineTextMeasure())) {
+            CachingTextMeasure cache = new CachingTextMeasure(measure);
+            for (int index : FeatureDictionary.CATEGORICAL_FEATURES) {
+                Vocabulary vocabulary = dictionary.vocabulary(index);
+                for (int pass = 0; pass < 2; pass++) {
+                    for (int id1 = 0; id1 < vocabulary.size(); id1++) {
+                        for (int id2 = 0; id2 < vocabulary.size(); id2++) {
+                            assertEquals(measure.calculate(vocabulary, id1, id2), cache.calculate(vocabulary, id1, id2),
+                                    measure.getName());
+                        }
+                    }
+                }
+            }
+            assertTrue(cache.getHits() > cache.getMisses(), cache.toString());
+            assertSame(measure, cache.getBaseMeasure());
+        }
+    }
+
+    // Jaccard on sets that counts its calls, and that cuts bounded id-set calls short to 0
+    private static final class CountingMeasure implements TextMeasure {
+        private final JaccardTextMeasure jaccard = new JaccardTextMeasure();
+        private int calls;
+
+        @Override
+        public double calculate(List<String> list1, List<String> list2) {
+            calls++;
+            return jaccard.calculate(list1, list2);
+        }
+
+        @Override
+        public double calculate(String str1, String str2) {
+            calls++;
+            return jaccard.calculate(str1, str2);
+        }
+
+        @Override
+        public double calculate(Vocabulary vocabulary, int[] ids1, int[] ids2, double minSimilarity) {
+            double similarity = calculate(vocabulary, ids1, ids2);
+            return similarity < minSimilarity ? 0.0 : similarity;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Sparse frequency vectors against the frequency maps of the original implementation
+class CosineTextMeasureTest {
+
+    private static final CosineTextMeasure MEASURE = new CosineTextMeasure();
+
+    @Test
+    void knownSimilarities() {
+        assertEquals(1.0, MEASURE.calculate("abc", "cab"), 1e-15);
+        assertEquals(0.0, MEASURE.calculate("ab", "cd"));
+        assertEquals(0.0, MEASURE.calculate("", "ab"));
+        assertEquals(0.0, MEASURE.calculate("", ""));
+        // (2, 1) . (1, 0) / (sqrt 5 * 1)
+        assertEquals(2 / Math.sqrt(5), MEASURE.calculate("aab", "a"), 1e-15);
+        assertEquals(1.0, MEASURE.calculate(List.of("OPEC"), List.of("opec")), 1e-15);
+    }
+
+    @Test
+    void vectorsMatchFrequencyMaps() {
+        SplittableRandom random = new SplittableRandom(23L);
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 80; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int length = random.nextInt(9); length > 0; length--) {
+                sb.append("aAbé c".charAt(random.nextInt(6)));
+            }
+            values.add(sb.toString());
+        }
+        Vocabulary vocabulary = new Vocabulary(values);
+        for (String s1 : values) {
+            for (String s2 : values) {
+                double expected = plainCosine(frequencies(s1.chars().boxed().toList()), frequencies(s2.chars().boxed().toList()));
+                assertEquals(expected, MEASURE.calculate(s1, s2), s1 + " / " + s2);
+                assertEquals(expected, MEASURE.calculate(vocabulary, vocabulary.idOf(s1), vocabulary.idOf(s2)), s1 + " / " + s2);
+            }
+        }
+    }
+
+    @Test
+    void termVectorsMatchLowerCaseWordFrequencies() {
+        SplittableRandom random = new SplittableRandom(29L);
+        List<String> tokens = List.of("opec", "OPEC", "Opec", "ec", "gatt", "imf");
+        Vocabulary vocabulary = new Vocabulary(tokens);
+        for (int i = 0; i < 500; i++) {
+            List<String> list1 = randomTokens(random, tokens);
+            List<String> list2 = randomTokens(random, tokens);
+            double expected = plainCosine(frequencies(list1.stream().map(String::toLowerCase).toList()),
+                    frequencies(list2.stream().map(String::toLowerCase).toList()));
+            assertEquals(expected, MEASURE.calculate(list1, list2), list1 + " / " + list2);
+
+            int[] ids1 = list1.stream().mapToInt(vocabulary::idOf).sorted().toArray();
+            int[] ids2 = list2.stream().mapToInt(vocabulary::idOf).sorted().toArray();
+            assertEquals(expected, MEASURE.calculate(vocabulary, ids1, ids2), list1 + " / " + list2);
+            assertEquals(expected, MEASURE.calculate(vocabulary.termVector(ids1), vocabulary.termVector(ids2)),
+                    list1 + " / " + list2);
+        }
+    }
+
+    @Test
+    void sparseVectorsCountOccurrences() {
+        SparseVector vector = SparseVector.countOf(new int[]{7, 2, 7, 7});
+        assertEquals(2, vector.nonZeros());
+        assertEquals(Math.sqrt(1 + 9), vector.norm());
+        assertEquals(3.0, vector.dot(SparseVector.countOf(new int[]{7})));
+        assertSame(SparseVector.EMPTY, SparseVector.countOf(new int[0]));
+        assertEquals(0.0, SparseVector.EMPTY.cosine(vector));
+    }
+
+    private static <T> Map<T, Integer> frequencies(List<T> values) {
+        Map<T, Integer> frequencies = new HashMap<>();
+        for (T value : values) {
+            frequencies.merge(value, 1, Integer::sum);
+        }
+        return frequencies;
+    }
+
+    // Dot product over the union of keys divided by both magnitudes, 0 when either is empty
+    private static <T> double plainCosine(Map<T, Integer> map1, Map<T, Integer> map2) {
+        Set<T> keys = new HashSet<>(map1.keySet());
+        keys.addAll(map2.keySet());
+        double dotProduct = 0.0;
+        for (T key : keys) {
+            dotProduct += map1.getOrDefault(key, 0) * map2.getOrDefault(key, 0);
+        }
+        double magnitude1 = Math.sqrt(map1.values().stream().mapToDouble(f -> f * f).sum());
+        double magnitude2 = Math.sqrt(map2.values().stream().mapToDouble(f -> f * f).sum());
+        if (magnitude1 == 0 || magnitude2 == 0) {
+            return 0;
+        }
+        return dotProduct / (magnitude1 * magnitude2);
+    }
+
+    private static List<String> randomTokens(SplittableRandom random, List<String> tokens) {
+        List<String> list = new ArrayList<>();
+        for (int i = random.nextInt(6); i > 0; i--) {
+            list.add(tokens.get(random.nextInt(tokens.size())));
+        }
+        return list;
+    }
+}
@@ -0,0 +1,110 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Matches of the one-pass dictionary scan, checked against occurrences worked out by hand
+class DictionaryMatcherTest {
+
+    private static final DictionaryMatcher MATCHER = matcher(
+            List.of("new york", "york", "new york city", "west-germany", "usa"),
+            List.of("dlr", "us dlr", "yen"));
+
+    @Test
+    void wordEntriesMatchWholeWhitespaceSeparatedWords() {
+        DictionaryMatcher.Matches matches = MATCHER.findAll("USA, usa yorkshire usas Usa");
+
+        // Punctuation is part of the word, as with split("\\s+")
+        assertEquals(List.of("5:8 usa", "24:27 Usa"), describe(matches.get("places")));
+    }
+
+    @Test
+    void currencyEntriesMatchInsideWords() {
+        DictionaryMatcher.Matches matches = MATCHER.findAll("dlrs 5yen US DLR");
+
+        assertEquals(List.of("0:3 dlr", "6:9 yen", "10:16 US DLR", "13:16 DLR"), describe(matches.get("currencies")));
+        assertEquals(List.of("dlr", "us dlr", "yen"), matches.entries("currencies"));
+    }
+
+    @Test
+    void multiWordEntriesMatchHyphenOrWhitespace() {
+        DictionaryMatcher.Matches matches = MATCHER.findAll("West Germany and new-york and\tnew\nYork and west--germany");
+
+        assertEquals(List.of("west-germany", "new york", "new york"),
+                matches.get("places").stream().map(DictionaryMatcher.Match::getEntry).toList());
+        assertEquals(List.of("0:12 West Germany", "17:25 new-york", "30:38 new\nYork"), describe(matches.get("places")));
+        // Entries come back in dictionary order, not in order of occurrence
+        assertEquals(List.of("new york", "west-germany"), matches.entries("places"));
+    }
+
+    @Test
+    void overlappingWordEntriesKeepTheLeftmostLongest() {
+        assertEquals(List.of("0:13 New York City"), describe(MATCHER.findAll("New York City").get("places")));
+        assertEquals(List.of("0:8 new york", "9:13 york"), describe(MATCHER.findAll("new york york").get("places")));
+        assertEquals(List.of("4:12 new york"), describe(MATCHER.findAll("old new york cityhall").get("places")));
+    }
+
+    @Test
+    void emptyTextHasNoMatches() {
+        DictionaryMatcher.Matches matches = MATCHER.findAll("");
+        assertTrue(matches.get("places").isEmpty());
+        assertTrue(matches.entries("currencies").isEmpty());
+    }
+
+    @Test
+    void unknownDictionariesAndMissingBoundariesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> MATCHER.findAll("usa").get("people"));
+        assertThrows(IllegalArgumentException.class,
+                () -> new DictionaryMatcher(Map.of("places", List.of("usa")), Map.of()));
+    }
+
+    @Test
+    void registryReadsTrimmedLowerCaseEntries(@TempDir Path directory) throws IOException {
+        Files.writeString(directory.resolve("people.txt"), "  John Smith \n\njohn smith\nMary\n");
+        Files.writeString(directory.resolve("orgs.txt"), "opec\n");
+        Files.writeString(directory.resolve("places.txt"), "usa\n");
+        Files.writeString(directory.resolve("capitals.txt"), "bonn\n");
+        Files.writeString(directory.resolve("currencies.txt"), "DLR\n");
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, null)) {
+            DictionaryMatcher matcher = DictionaryRegistry.load(classLoader).getMatcher();
+
+            assertEquals(2, matcher.size("people"));
+            assertEquals(List.of("john smith"), matcher.findAll("Mr John Smith said").entries("people"));
+            assertEquals(DictionaryMatcher.Boundary.NONE, matcher.getBoundary("currencies"));
+            assertEquals(DictionaryMatcher.Boundary.WORD, matcher.getBoundary("places"));
+            assertEquals(List.of("dlr"), matcher.findAll("90dlrs").entries("currencies"));
+        }
+    }
+
+    @Test
+    void registryRequiresEveryDictionary(@TempDir Path directory) throws IOException {
+        Files.writeString(directory.resolve("people.txt"), "john\n");
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, null)) {
+            assertThrows(IllegalArgumentException.class, () -> DictionaryRegistry.load(classLoader));
+        }
+    }
+
+    private static DictionaryMatcher matcher(List<String> places, List<String> currencies) {
+        Map<String, List<String>> dictionaries = new LinkedHashMap<>();
+        dictionaries.put("places", places);
+        dictionaries.put("currencies", currencies);
+        return new DictionaryMatcher(dictionaries,
+                Map.of("places", DictionaryMatcher.Boundary.WORD, "currencies", DictionaryMatcher.Boundary.NONE));
+    }
+
+    // "start:end text" of each match
+    private static List<String> describe(List<DictionaryMatcher.Match> matches) {
+        return matches.stream().map(match -> match.getStart() + ":" + match.getEnd() + " " + match.getText()).toList();
+    }
+}
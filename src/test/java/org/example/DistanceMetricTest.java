@@ -0,0 +1,78 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Metric folds over per-feature distances, on hand-computed values and against the document-pair distance
+class DistanceMetricTest {
+
+    private static final List<DistanceMetric> METRICS = List.of(
+            new EuclideanDistance(), new ManhattanDistance(), new ChebyshevDistance());
+    private static final List<TextMeasure> MEASURES = List.of(
+            new JaccardTextMeasure(), new LevenshteinTextMeasure(), new CosineTextMeasure());
+    private static final Set<Integer> NUMERIC_FEATURES = new TreeSet<>(List.of(8, 9));
+
+    @Test
+    void foldsMatchHandComputedDistances() {
+        // Per-feature differences -3 and 4
+        Document first = new Document("1", new FeatureVector("", List.of(), "", "", "", List.of(), "", "", 1, 10), "a");
+        Document second = new Document("2", new FeatureVector("", List.of(), "", "", "", List.of(), "", "", 4, 6), "b");
+        TextMeasure measure = new JaccardTextMeasure();
+
+        assertEquals(5.0, new EuclideanDistance().calculate(first, second, measure, NUMERIC_FEATURES));
+        assertEquals(7.0, new ManhattanDistance().calculate(first, second, measure, NUMERIC_FEATURES));
+        assertEquals(4.0, new ChebyshevDistance().calculate(first, second, measure, NUMERIC_FEATURES));
+        for (DistanceMetric metric : METRICS) {
+            assertEquals(metric.calculate(first, second, measure, NUMERIC_FEATURES),
+                    metric.aggregate(List.of(-3.0, 4.0)), metric.getClass().getSimpleName());
+            assertEquals(0.0, metric.aggregate(List.of()), metric.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void textFeaturesContributeOneMinusTheirSimilarity() {
+        Document first = new Document("1", new FeatureVector("ab", List.of("opec"), "", "", "", List.of(), "", "", 0, 0), "a");
+        Document second = new Document("2", new FeatureVector("abcd", List.of("opec", "ec"), "", "", "", List.of(), "", "", 0, 0), "b");
+        Set<Integer> features = new TreeSet<>(List.of(0, 1));
+
+        // Jaccard: chars {a,b} vs {a,b,c,d} = 0.5, orgs {opec} vs {opec,ec} = 0.5
+        assertEquals(1.0, new ManhattanDistance().calculate(first, second, new JaccardTextMeasure(), features));
+        // Levenshtein: 2 edits over 4 chars, 1 edit over 2 tokens
+        assertEquals(Math.sqrt(0.5), new EuclideanDistance().calculate(first, second, new LevenshteinTextMeasure(), features), 1e-15);
+    }
+
+    @Test
+    void storeDistancesMatchDocumentDistances() {
+        List<Document> documents = TestCorpus.documents();
+        FeatureDictionary dictionary = FeatureDictionary.of(documents);
+        TrainingStore store = new TrainingStore(documents, dictionary);
+        int[] features = TestCorpus.ALL_FEATURES.stream().mapToInt(Integer::intValue).toArray();
+
+        for (DistanceMetric metric : METRICS) {
+            for (TextMeasure measure : MEASURES) {
+                for (int i = 0; i < documents.size(); i += 7) {
+                    FeatureVector query = dictionary.encode(documents.get(i).getFeatures());
+                    for (int row = 0; row < store.size(); row++) {
+                        // Unencoded documents: the plain string comparison
+                        double expected = metric.calculate(documents.get(i), documents.get(row), measure,
+                                TestCorpus.ALL_FEATURES);
+                        assertEquals(expected, metric.calculate(query, store, row, measure, features),
+                                metric.getClass().getSimpleName() + " with " + measure.getName());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void unknownFeatureIndicesAreRejected() {
+        Document document = TestCorpus.wordCountDocument("1", "a", 10);
+        assertThrows(IllegalArgumentException.class, () -> new EuclideanDistance().calculate(document, document,
+                new JaccardTextMeasure(), Set.of(10)));
+    }
+}
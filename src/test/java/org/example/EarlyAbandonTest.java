@@ -0,0 +1,75 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Row distances abandoned against a bound: exact whenever they are within it, above it otherwise
+class EarlyAbandonTest {
+
+    private static final List<DistanceMetric> METRICS = List.of(
+            new EuclideanDistance(), new ManhattanDistance(), new ChebyshevDistance());
+    private static final List<TextMeasure> MEASURES = List.of(
+            new JaccardTextMeasure(), new LevenshteinTextMeasure(), new CosineTextMeasure());
+
+    @Test
+    void abandonedRowsExceedTheBound() {
+        List<Document> training = List.of(new Document("1",
+                new FeatureVector("", List.of(), "", "", "", List.of(), "", "", 4, 6), "a"));
+        TrainingStore store = new TrainingStore(training, FeatureDictionary.of(training));
+        FeatureVector query = new FeatureVector("", List.of(), "", "", "", List.of(), "", "", 1, 10);
+        int[] features = {8, 9};
+        ManhattanDistance metric = new ManhattanDistance();
+
+        // |1 - 4| alone is beyond 2, so the word count is never added
+        assertEquals(3.0, metric.calculate(query, store, 0, new JaccardTextMeasure(), features, 2.0));
+        assertEquals(7.0, metric.calculate(query, store, 0, new JaccardTextMeasure(), features, 7.0));
+        assertEquals(7.0, metric.calculate(query, store, 0, new JaccardTextMeasure(), features));
+    }
+
+    @Test
+    void boundedDistancesAreExactWithinTheBound() {
+        List<Document> documents = TestCorpus.encodedDocuments();
+        TrainingStore store = new TrainingStore(documents, FeatureDictionary.of(documents));
+        int[] features = TestCorpus.ALL_FEATURES.stream().mapToInt(Integer::intValue).toArray();
+
+        for (DistanceMetric metric : METRICS) {
+            for (TextMeasure measure : MEASURES) {
+                for (int i = 0; i < documents.size(); i += 11) {
+                    FeatureVector query = documents.get(i).getFeatures();
+                    for (int row = 0; row < store.size(); row += 3) {
+                        double exact = metric.calculate(query, store, row, measure, features);
+                        for (double bound : new double[]{0.0, exact / 2, Math.nextDown(exact), exact, exact * 2}) {
+                            double bounded = metric.calculate(query, store, row, measure, features, bound);
+                            String description = metric.getClass().getSimpleName() + " with " + measure.getName()
+                                    + ", bound " + bound;
+                            if (exact <= bound) {
+                                assertEquals(exact, bounded, description);
+                            } else {
+                                assertTrue(bounded > bound, description);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void evaluationWithAndWithoutAbandoningMatchesFullScan() {
+        for (TextMeasure measure : MEASURES) {
+            for (DistanceMetric metric : METRICS) {
+                KNN model = TestCorpus.model(5, TestCorpus.ALL_FEATURES, metric, measure);
+                List<String> expected = TestCorpus.fullScan(model, 5, TestCorpus.ALL_FEATURES, metric, measure);
+                model.evaluateModel();
+                assertEquals(expected, model.getPredictedLabels(), metric.getClass().getSimpleName() + " with " + measure.getName());
+
+                model.setEarlyAbandon(false);
+                model.evaluateModel();
+                assertEquals(expected, model.getPredictedLabels(), metric.getClass().getSimpleName() + " with " + measure.getName());
+            }
+        }
+    }
+}
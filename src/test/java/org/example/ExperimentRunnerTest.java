@@ -0,0 +1,96 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Configurations read from text, and a pooled run of them against evaluating each on its own
+class ExperimentRunnerTest {
+
+    private static final DistanceMetric EUCLIDEAN = new EuclideanDistance();
+    private static final DistanceMetric MANHATTAN = new ManhattanDistance();
+    private static final TextMeasure JACCARD = new JaccardTextMeasure();
+    private static final Map<String, DistanceMetric> METRICS = Map.of("euclidean", EUCLIDEAN, "manhattan", MANHATTAN);
+    private static final Map<String, TextMeasure> MEASURES = Map.of("jaccard", JACCARD);
+
+    @Test
+    void linesParseIntoConfigurations() {
+        ExperimentConfig config = ExperimentConfig.parse(
+                "Experiment 2: ratio; k=3,5; ratio=0.5; features=9,0,1; metric=Euclidean; measure=jaccard; index=metric",
+                METRICS, MEASURES);
+
+        assertEquals("Experiment 2: ratio", config.getExperiment());
+        assertArrayEquals(new int[]{3, 5}, config.getKs());
+        assertEquals(5, config.getMaxK());
+        assertEquals(0.5, config.getSplitRatio());
+        assertEquals(List.of(9, 0, 1), List.copyOf(config.getFeatures()));
+        assertEquals(List.of(EUCLIDEAN), config.getMetrics());
+        assertSame(JACCARD, config.getTextMeasure());
+        assertTrue(config.usesMetricIndex());
+    }
+
+    @Test
+    void malformedLinesAreRejected() {
+        for (String line : List.of(
+                "no k; ratio=0.5; features=0; metric=euclidean; measure=jaccard",
+                "bad pair; k=3; ratio; features=0; metric=euclidean; measure=jaccard",
+                "ratio; k=3; ratio=1.0; features=0; metric=euclidean; measure=jaccard",
+                "feature; k=3; ratio=0.5; features=10; metric=euclidean; measure=jaccard",
+                "metric; k=3; ratio=0.5; features=0; metric=cosine; measure=jaccard",
+                "both; k=3,5; ratio=0.5; features=0; metric=euclidean,manhattan; measure=jaccard",
+                "index; k=3; ratio=0.5; features=0; metric=euclidean; measure=jaccard; index=lsh")) {
+            assertThrows(IllegalArgumentException.class, () -> ExperimentConfig.parse(line, METRICS, MEASURES), line);
+        }
+    }
+
+    @Test
+    void filesSkipBlankAndCommentLines(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("experiments.txt");
+        Files.writeString(file, "# k sweep\n\n  A; k=1; ratio=0.7; features=9; metric=euclidean; measure=jaccard  \n"
+                + "B; k=3; ratio=0.7; features=8,9; metric=euclidean,manhattan; measure=jaccard\n");
+
+        List<ExperimentConfig> configs = ExperimentConfig.readAll(file, METRICS, MEASURES);
+        assertEquals(List.of("A", "B"), configs.stream().map(ExperimentConfig::getExperiment).toList());
+        assertEquals(List.of(EUCLIDEAN, MANHATTAN), configs.get(1).getMetrics());
+    }
+
+    @Test
+    void pooledRunMatchesEachConfigurationOnItsOwn() {
+        Set<Integer> features = TestCorpus.ALL_FEATURES;
+        List<ExperimentConfig> configs = List.of(
+                new ExperimentConfig("single", 5, 0.7, features, EUCLIDEAN, JACCARD),
+                new ExperimentConfig("sweep", new int[]{1, 3}, 0.7, features, MANHATTAN, JACCARD, true),
+                new ExperimentConfig("metrics", new int[]{3}, 0.7, features, List.of(EUCLIDEAN, MANHATTAN), JACCARD, false));
+        List<ExperimentResult> results = new ExperimentRunner(TestCorpus.documents(), 2).run(configs);
+
+        // One result per k and metric, in the order of the configurations
+        assertEquals(List.of("single 5", "sweep 1", "sweep 3", "metrics 3", "metrics 3"),
+                results.stream().map(result -> result.getConfig().getExperiment() + " " + result.getK()).toList());
+        assertEquals(List.of(EUCLIDEAN, MANHATTAN, MANHATTAN, EUCLIDEAN, MANHATTAN),
+                results.stream().map(ExperimentResult::getMetric).toList());
+
+        KNN single = TestCorpus.model(5, features, EUCLIDEAN, JACCARD);
+        single.evaluateModel();
+        TestCorpus.assertSameResult(single.getResult(), results.get(0).getResult());
+        assertEquals(single.getPredictedLabels(), results.get(0).getPredictedLabels());
+        for (int i = 1; i < results.size(); i++) {
+            ExperimentResult result = results.get(i);
+            KNN model = TestCorpus.model(result.getK(), features, result.getMetric(), JACCARD);
+            model.evaluateModel();
+            TestCorpus.assertSameResult(model.getResult(), result.getResult());
+            // Sweeps and metric passes do not keep the labels
+            assertEquals(List.of(), result.getPredictedLabels());
+            assertEquals(single.getTestDocuments().size(), result.getActualLabels().size());
+        }
+        assertTrue(results.get(1).getIndexReport().startsWith("VP-tree"), results.get(1).getIndexReport());
+        assertThrows(IllegalArgumentException.class, () -> new ExperimentRunner(TestCorpus.documents(), 0));
+    }
+}
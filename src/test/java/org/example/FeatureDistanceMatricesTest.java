@@ -0,0 +1,135 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Float distance matrices against the exact double distances. Rounding to float may reorder rows whose exact
+// distances are nearly equal, so a test document may only change its prediction when its k-th and (k+1)-th
+// exact distances are that close.
+class FeatureDistanceMatricesTest {
+
+    private static final int K = 5;
+    // Relative float rounding of a distance, with room for the fold over several features
+    private static final double TIE_TOLERANCE = 1e-6;
+
+    private static ExecutorService executor;
+
+    @BeforeAll
+    static void startExecutor() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterAll
+    static void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void mappedMatricesMatchHeapMatrices(@TempDir Path spill) {
+        KNN model = TestCorpus.model(K, TestCorpus.ALL_FEATURES, new EuclideanDistance(), new LevenshteinTextMeasure());
+        FeatureDistanceMatrices heap = new FeatureDistanceMatrices(model);
+        // No heap budget: every matrix is memory-mapped
+        FeatureDistanceMatrices mapped = new FeatureDistanceMatrices(model, 0, spill);
+
+        for (int[] features : List.of(new int[]{0, 1, 8}, new int[]{5, 9}, new int[]{2, 3, 4, 6, 7})) {
+            for (DistanceMetric metric : List.of(new EuclideanDistance(), new ChebyshevDistance())) {
+                TestCorpus.assertSameResult(heap.evaluate(features, metric, K, executor),
+                        mapped.evaluate(features, metric, K, executor));
+            }
+        }
+        assertTrue(mapped.toString().contains("0.0 MB on heap"), mapped.toString());
+    }
+
+    @Test
+    void mappedRowsRoundTrip(@TempDir Path spill) {
+        DistanceMatrix matrix = DistanceMatrix.mapped(7, 13, spill);
+        for (int row = 0; row < matrix.rows(); row++) {
+            float[] distances = new float[matrix.columns()];
+            for (int column = 0; column < distances.length; column++) {
+                distances[column] = (float) Math.sqrt(row * 31 + column);
+            }
+            matrix.setRow(row, distances);
+        }
+        float[] read = new float[matrix.columns()];
+        for (int row = 0; row < matrix.rows(); row++) {
+            matrix.getRow(row, read);
+            for (int column = 0; column < read.length; column++) {
+                assertEquals((float) Math.sqrt(row * 31 + column), read[column]);
+            }
+        }
+    }
+
+    @Test
+    void wholeNumberDistancesMatchExactSearch() {
+        // Word counts and days that float holds exactly; the label follows the word count, days are noise
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            documents.add(new Document(String.valueOf(i), new FeatureVector("", List.of(), "", "", "", List.of(), "", "",
+                    i % 7, 10 * (i % 20)), i % 20 < 10 ? "short" : "long"));
+        }
+        int[] features = {8, 9};
+        for (DistanceMetric metric : List.of(new ManhattanDistance(), new ChebyshevDistance())) {
+            KNN model = new KNN(3, 0.7, Set.of(8, 9), metric, new JaccardTextMeasure());
+            model.splitDataset(documents);
+            model.evaluateModel();
+
+            TestCorpus.assertSameResult(model.getResult(),
+                    new FeatureDistanceMatrices(model).evaluate(features, metric, 3, executor));
+        }
+    }
+
+    @Test
+    void evaluationMatchesExactSearchUpToTies() {
+        for (DistanceMetric metric : List.of(new EuclideanDistance(), new ManhattanDistance(), new ChebyshevDistance())) {
+            KNN model = TestCorpus.model(K, TestCorpus.ALL_FEATURES, metric, new JaccardTextMeasure());
+            model.evaluateModel();
+            List<String> exact = model.getPredictedLabels();
+            List<String> actual = model.getTestDocuments().stream().map(Document::getTargetLabel).toList();
+
+            FeatureDistanceMatrices matrices = new FeatureDistanceMatrices(model);
+            int[] features = TestCorpus.ALL_FEATURES.stream().mapToInt(Integer::intValue).toArray();
+            EvaluationResult approximate = matrices.evaluate(features, metric, K, executor);
+
+            int exactCorrect = 0;
+            int ties = 0;
+            for (int test = 0; test < exact.size(); test++) {
+                if (exact.get(test).equals(actual.get(test))) {
+                    exactCorrect++;
+                }
+                if (isNearTie(model, metric, features, test)) {
+                    ties++;
+                }
+            }
+            int approximateCorrect = (int) Math.round(approximate.getAccuracy() * exact.size());
+            assertTrue(Math.abs(approximateCorrect - exactCorrect) <= ties,
+                    metric.getClass().getSimpleName() + ": " + approximateCorrect + " vs " + exactCorrect
+                            + " correct with " + ties + " near ties");
+        }
+    }
+
+    // Whether the k-th and (k+1)-th nearest exact distances of a test document are within float rounding
+    private static boolean isNearTie(KNN model, DistanceMetric metric, int[] features, int test) {
+        TrainingStore store = model.getTrainingStore();
+        FeatureVector query = model.getTestFeatures().get(test);
+        NearestNeighbors neighbors = new NearestNeighbors(K + 1, store.size());
+        neighbors.reset();
+        for (int row = 0; row < store.size(); row++) {
+            neighbors.offer(metric.calculate(query, store, row, model.getTextMeasure(), features), row);
+        }
+        neighbors.finish();
+        double kth = neighbors.distance(K - 1);
+        double next = neighbors.distance(K);
+        return next - kth <= TIE_TOLERANCE * Math.max(1.0, Math.abs(next));
+    }
+}
@@ -0,0 +1,109 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Encoded features against the string values they replace
+class FeatureEncodingTest {
+
+    private static final List<TextMeasure> MEASURES = List.of(
+            new JaccardTextMeasure(), new LevenshteinTextMeasure(), new CosineTextMeasure());
+
+    @Test
+    void encodingCopiesAndLeavesDocumentsUnchanged() {
+        List<Document> documents = TestCorpus.documents();
+        FeatureDictionary dictionary = FeatureDictionary.of(documents);
+        List<Document> encoded = documents.stream().map(dictionary::encode).toList();
+
+        for (int i = 0; i < documents.size(); i++) {
+            FeatureVector original = documents.get(i).getFeatures();
+            FeatureVector copy = encoded.get(i).getFeatures();
+            assertNull(original.getDictionary());
+            assertSame(dictionary, copy.getDictionary());
+            assertNotSame(original, copy);
+            for (int index : FeatureDictionary.CATEGORICAL_FEATURES) {
+                assertEquals(original.getCategory(index), copy.getCategory(index));
+                assertEquals(original.getCategory(index), dictionary.vocabulary(index).valueOf(copy.getCategoryId(index)));
+            }
+            for (int index : FeatureDictionary.MULTI_VALUED_FEATURES) {
+                assertEquals(original.getCategories(index).stream().sorted().toList(), copy.getCategories(index));
+            }
+            assertEquals(original.getNumericFeatures(), copy.getNumericFeatures());
+        }
+
+        assertSame(dictionary, FeatureDictionary.of(encoded));
+        assertSame(encoded.get(0), dictionary.encode(encoded.get(0)));
+    }
+
+    @Test
+    void encodingSortsMultiValuedFeatures() {
+        FeatureVector features = new FeatureVector("", List.of("opec", "ec", "OPEC"), "", "", "", List.of("yen", "dlr"),
+                "", "", 0, 0);
+        FeatureDictionary dictionary = FeatureDictionary.of(List.of(new Document("1", features, "usa")));
+        FeatureVector encoded = dictionary.encode(features);
+
+        assertEquals(List.of("OPEC", "ec", "opec"), encoded.getCategories(1));
+        assertEquals(List.of("dlr", "yen"), encoded.getCategories(5));
+        assertEquals(List.of("opec", "ec", "OPEC"), features.getCategories(1));
+    }
+
+    @Test
+    void vocabularyIdsFollowValueOrder() {
+        Vocabulary vocabulary = new Vocabulary(List.of("yen", "dlr", "DLR", "yen", ""));
+
+        assertEquals(4, vocabulary.size());
+        assertEquals(List.of("", "DLR", "dlr", "yen"), vocabulary.valuesOf(new int[]{0, 1, 2, 3}));
+        assertEquals(3, vocabulary.idOf("yen"));
+        assertEquals(-1, vocabulary.idOf("stg"));
+        // Case variants are separate values but one term
+        assertEquals(vocabulary.termIdOf(1), vocabulary.termIdOf(2));
+        assertEquals(3, vocabulary.termCount());
+    }
+
+    @Test
+    void dictionaryHasVocabulariesOfTextFeaturesOnly() {
+        FeatureDictionary dictionary = FeatureDictionary.of(TestCorpus.documents());
+        for (int index = 0; index < FeatureDictionary.FEATURE_COUNT; index++) {
+            int feature = index;
+            if (FeatureDictionary.isCategorical(index) || FeatureDictionary.isMultiValued(index)) {
+                assertNotNull(dictionary.vocabulary(index));
+            } else {
+                assertThrows(IllegalArgumentException.class, () -> dictionary.vocabulary(feature));
+            }
+        }
+    }
+
+    @Test
+    void encodedSimilaritiesMatchStringSimilarities() {
+        List<Document> documents = TestCorpus.documents();
+        FeatureDictionary dictionary = FeatureDictionary.of(documents);
+        List<FeatureVector> raw = documents.stream().map(Document::getFeatures).toList();
+        List<FeatureVector> encoded = raw.stream().map(dictionary::encode).toList();
+
+        for (TextMeasure measure : MEASURES) {
+            for (int i = 0; i < raw.size(); i += 3) {
+                for (int j = 0; j < raw.size(); j += 5) {
+                    for (int index : FeatureDictionary.CATEGORICAL_FEATURES) {
+                        assertEquals(measure.calculate(raw.get(i).getCategory(index), raw.get(j).getCategory(index)),
+                                measure.calculate(dictionary.vocabulary(index),
+                                        encoded.get(i).getCategoryId(index), encoded.get(j).getCategoryId(index)),
+                                measure.getName() + " on feature " + index);
+                    }
+                    for (int index : FeatureDictionary.MULTI_VALUED_FEATURES) {
+                        double expected = measure.calculate(raw.get(i).getCategories(index), raw.get(j).getCategories(index));
+                        assertEquals(expected, measure.calculate(dictionary.vocabulary(index),
+                                        encoded.get(i).getCategoryIds(index), encoded.get(j).getCategoryIds(index)),
+                                measure.getName() + " on feature " + index);
+                        if (measure.usesTermVectors()) {
+                            assertEquals(expected, ((TermVectorMeasure) measure).calculate(
+                                    encoded.get(i).getTermVector(index), encoded.get(j).getTermVector(index)));
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
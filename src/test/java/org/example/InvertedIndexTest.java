@@ -0,0 +1,83 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Distances filled through the postings against the text measure on every row
+class InvertedIndexTest {
+
+    private static final List<DistanceMetric> METRICS = List.of(
+            new EuclideanDistance(), new ManhattanDistance(), new ChebyshevDistance());
+    private static final Set<Integer> LIST_FEATURES = new TreeSet<>(List.of(1, 5, 8, 9));
+
+    @Test
+    void filledColumnsMatchEveryRowScored() {
+        List<Document> documents = List.of(
+                organisations("1", "opec", "ec"), organisations("2", "OPEC"), organisations("3", "gatt"),
+                organisations("4"), organisations("5", "ec", "imf"));
+        FeatureDictionary dictionary = FeatureDictionary.of(documents);
+        TrainingStore store = new TrainingStore(documents.stream().map(dictionary::encode).toList(), dictionary);
+        InvertedIndex index = new InvertedIndex(store, new int[]{1});
+
+        for (TextMeasure measure : List.of(new JaccardTextMeasure(), new CosineTextMeasure(), new LevenshteinTextMeasure())) {
+            for (Document document : documents) {
+                FeatureVector query = dictionary.encode(document.getFeatures());
+                double[] column = new double[store.size()];
+                boolean filled = index.fillDistances(query, 1, measure, column);
+                assertEquals(!query.getCategories(1).isEmpty(), filled, measure.getName() + " on " + query.getCategories(1));
+                if (filled) {
+                    for (int row = 0; row < store.size(); row++) {
+                        assertEquals(DistanceMetric.featureDistance(query, store, row, measure, 1), column[row],
+                                measure.getName() + " on " + query.getCategories(1) + ", row " + row);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void queriesTheIndexCannotHelpAreLeftToTheCaller() {
+        List<Document> documents = List.of(organisations("1", "opec"), organisations("2", "ec"));
+        FeatureDictionary dictionary = FeatureDictionary.of(documents);
+        TrainingStore store = new TrainingStore(documents.stream().map(dictionary::encode).toList(), dictionary);
+        InvertedIndex index = new InvertedIndex(store, new int[]{1});
+        double[] column = new double[store.size()];
+
+        // Not encoded with the store's dictionary
+        assertFalse(index.fillDistances(documents.get(0).getFeatures(), 1, new JaccardTextMeasure(), column));
+        // No constant similarity for disjoint sets
+        assertFalse(index.fillDistances(store.getFeatures(0), 1, new TextMeasure() {
+            public double calculate(List<String> list1, List<String> list2) {
+                return 0.0;
+            }
+
+            public double calculate(String str1, String str2) {
+                return 0.0;
+            }
+        }, column));
+        assertThrows(IllegalArgumentException.class, () -> new InvertedIndex(store, new int[]{0}));
+    }
+
+    @Test
+    void evaluationWithTheIndexMatchesFullScan() {
+        for (TextMeasure measure : List.of(new JaccardTextMeasure(), new CosineTextMeasure(), new LevenshteinTextMeasure())) {
+            for (Set<Integer> features : List.of(TestCorpus.ALL_FEATURES, LIST_FEATURES)) {
+                for (DistanceMetric metric : METRICS) {
+                    KNN model = TestCorpus.model(5, features, metric, measure);
+                    model.evaluateModel();
+                    assertEquals(TestCorpus.fullScan(model, 5, features, metric, measure), model.getPredictedLabels(),
+                            metric.getClass().getSimpleName() + " with " + measure.getName() + " on " + features);
+                }
+            }
+        }
+    }
+
+    private static Document organisations(String id, String... organisations) {
+        return new Document(id, new FeatureVector("", List.of(organisations), "", "", "", List.of(), "", "", 0, 0), "a");
+    }
+}
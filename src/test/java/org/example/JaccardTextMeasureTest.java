@@ -0,0 +1,102 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Character masks and merged id arrays against the set-based Jaccard of the original implementation
+class JaccardTextMeasureTest {
+
+    private static final JaccardTextMeasure MEASURE = new JaccardTextMeasure();
+
+    @Test
+    void knownSimilarities() {
+        assertEquals(0.5, MEASURE.calculate("ab", "abcd"));
+        assertEquals(1.0, MEASURE.calculate("", ""));
+        assertEquals(0.0, MEASURE.calculate("", "a"));
+        assertEquals(1.0, MEASURE.calculate("aab", "ba"));
+        assertEquals(1.0 / 3, MEASURE.calculate(List.of("opec", "ec"), List.of("ec", "imf")));
+        assertEquals(1.0, MEASURE.calculate(List.of(), List.of()));
+    }
+
+    @Test
+    void stringsMatchCharacterSets() {
+        SplittableRandom random = new SplittableRandom(17L);
+        // ASCII masks, including chars 63/64 at the word boundary, and the sorted fallback for other chars
+        for (String alphabet : List.of("?@AB ab~", "abcdefghijklmnopqrstuvwxyz", "aé€中?")) {
+            List<String> values = new ArrayList<>();
+            for (int i = 0; i < 60; i++) {
+                values.add(randomString(random, alphabet, random.nextInt(8)));
+            }
+            Vocabulary vocabulary = new Vocabulary(values);
+            for (String s1 : values) {
+                for (String s2 : values) {
+                    double expected = plainJaccard(chars(s1), chars(s2));
+                    assertEquals(expected, MEASURE.calculate(s1, s2), s1 + " / " + s2);
+                    assertEquals(expected, MEASURE.calculate(vocabulary, vocabulary.idOf(s1), vocabulary.idOf(s2)),
+                            s1 + " / " + s2);
+                }
+            }
+        }
+    }
+
+    @Test
+    void idArraysMatchTokenSets() {
+        SplittableRandom random = new SplittableRandom(19L);
+        List<String> tokens = List.of("opec", "OPEC", "ec", "gatt", "imf", "fed");
+        Vocabulary vocabulary = new Vocabulary(tokens);
+        for (int i = 0; i < 500; i++) {
+            List<String> list1 = randomTokens(random, tokens);
+            List<String> list2 = randomTokens(random, tokens);
+            double expected = list1.isEmpty() && list2.isEmpty() ? 1.0 : plainJaccard(new HashSet<>(list1), new HashSet<>(list2));
+            assertEquals(expected, MEASURE.calculate(list1, list2), list1 + " / " + list2);
+
+            // Sorted ids with duplicates, as encoding stores them
+            int[] ids1 = list1.stream().mapToInt(vocabulary::idOf).sorted().toArray();
+            int[] ids2 = list2.stream().mapToInt(vocabulary::idOf).sorted().toArray();
+            assertEquals(expected, MEASURE.calculate(vocabulary, ids1, ids2), list1 + " / " + list2);
+        }
+    }
+
+    private static Set<Character> chars(String value) {
+        Set<Character> chars = new HashSet<>();
+        for (char c : value.toCharArray()) {
+            chars.add(c);
+        }
+        return chars;
+    }
+
+    // |A n B| / |A u B|, with two empty sets identical
+    private static <T> double plainJaccard(Set<T> set1, Set<T> set2) {
+        Set<T> union = new HashSet<>(set1);
+        union.addAll(set2);
+        if (union.isEmpty()) {
+            return 1.0;
+        }
+        Set<T> intersection = new HashSet<>(set1);
+        intersection.retainAll(set2);
+        return (double) intersection.size() / union.size();
+    }
+
+    private static String randomString(SplittableRandom random, String alphabet, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    private static List<String> randomTokens(SplittableRandom random, List<String> tokens) {
+        List<String> list = new ArrayList<>();
+        for (int i = random.nextInt(5); i > 0; i--) {
+            list.add(tokens.get(random.nextInt(tokens.size())));
+        }
+        return list;
+    }
+}
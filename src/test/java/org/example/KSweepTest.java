@@ -0,0 +1,76 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// A k sweep votes on prefixes of one ranking; every k must get what a model of that k alone gets
+class KSweepTest {
+
+    private static final int[] KS = {1, 3, 5, 8};
+
+    private static ExecutorService executor;
+
+    @BeforeAll
+    static void startExecutor() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterAll
+    static void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void prefixesOfOneRankingVoteLikeSmallerKs() {
+        // Word counts 10..14: two "a" rows nearest to 10, then three "b" rows
+        List<Document> training = List.of(
+                TestCorpus.wordCountDocument("1", "a", 10), TestCorpus.wordCountDocument("2", "a", 11),
+                TestCorpus.wordCountDocument("3", "b", 12), TestCorpus.wordCountDocument("4", "b", 13),
+                TestCorpus.wordCountDocument("5", "b", 14));
+        TrainingStore store = new TrainingStore(training, FeatureDictionary.of(training));
+        NearestNeighbors ranking = new NearestNeighbors(5, store.size());
+        ranking.reset();
+        for (int row = 0; row < store.size(); row++) {
+            ranking.offer(Math.abs(store.getFeatures(row).getNumeric(9) - 10), row);
+        }
+        ranking.finish();
+
+        int[] votes = new int[store.labelCount()];
+        assertEquals("a", KNN.vote(store, ranking, 1, votes));
+        assertEquals("a", KNN.vote(store, ranking, 3, votes));
+        assertEquals("b", KNN.vote(store, ranking, 5, votes));
+        // A k beyond the ranking votes on all of it
+        assertEquals("b", KNN.vote(store, ranking, 40, votes));
+    }
+
+    @Test
+    void sweepMatchesOneEvaluationPerK() {
+        TextMeasure measure = new JaccardTextMeasure();
+        DistanceMetric metric = new ManhattanDistance();
+        KNN model = TestCorpus.model(KS[KS.length - 1], TestCorpus.ALL_FEATURES, metric, measure);
+        Map<Integer, EvaluationResult> sequential = model.evaluateSweep(KS);
+        Map<Integer, EvaluationResult> concurrent = model.evaluateSweep(KS, executor);
+        assertEquals(List.of(1, 3, 5, 8), List.copyOf(sequential.keySet()));
+
+        for (int k : KS) {
+            KNN single = TestCorpus.model(k, TestCorpus.ALL_FEATURES, metric, measure);
+            single.evaluateModel();
+            TestCorpus.assertSameResult(single.getResult(), sequential.get(k));
+            TestCorpus.assertSameResult(single.getResult(), concurrent.get(k));
+        }
+    }
+
+    @Test
+    void sweepRejectsNonPositiveK() {
+        KNN model = TestCorpus.model(3, TestCorpus.ALL_FEATURES, new EuclideanDistance(), new JaccardTextMeasure());
+        assertThrows(IllegalArgumentException.class, () -> model.evaluateSweep(new int[]{3, 0}));
+    }
+}
@@ -0,0 +1,113 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Bit-parallel, two-row and bounded edit distances against the plain dynamic program
+class LevenshteinTextMeasureTest {
+
+    private static final LevenshteinTextMeasure MEASURE = new LevenshteinTextMeasure();
+
+    @Test
+    void knownDistances() {
+        assertEquals(3, LevenshteinTextMeasure.distance("kitten", "sitting"));
+        assertEquals(0, LevenshteinTextMeasure.distance("", ""));
+        assertEquals(4, LevenshteinTextMeasure.distance("", "bonn"));
+        assertEquals(1.0 - 3.0 / 7, MEASURE.calculate("kitten", "sitting"));
+        assertEquals(1.0, MEASURE.calculate("", ""));
+        assertEquals(0.0, MEASURE.calculate(null, "bonn"));
+    }
+
+    @Test
+    void distancesMatchThePlainDynamicProgram() {
+        SplittableRandom random = new SplittableRandom(5L);
+        // Lengths on both sides of the 64-char word, and chars beyond ASCII
+        for (String alphabet : List.of("ab", "abcdefgh ", "aé€中")) {
+            for (int i = 0; i < 400; i++) {
+                String s1 = randomString(random, alphabet, random.nextInt(90));
+                String s2 = randomString(random, alphabet, random.nextInt(90));
+                int expected = plainDistance(s1, s2);
+                assertEquals(expected, LevenshteinTextMeasure.distance(s1, s2), s1 + " / " + s2);
+
+                int max = random.nextInt(expected + 3);
+                int bounded = LevenshteinTextMeasure.distance(s1, s2, max);
+                assertEquals(expected <= max ? expected : max + 1, bounded, s1 + " / " + s2 + " within " + max);
+            }
+        }
+    }
+
+    @Test
+    void boundedSimilarityIsExactAboveTheMinimum() {
+        SplittableRandom random = new SplittableRandom(9L);
+        for (int i = 0; i < 2000; i++) {
+            String s1 = randomString(random, "abcd", 1 + random.nextInt(12));
+            String s2 = randomString(random, "abcd", 1 + random.nextInt(12));
+            double exact = MEASURE.calculate(s1, s2);
+            double minSimilarity = random.nextDouble();
+            double bounded = MEASURE.calculate(s1, s2, minSimilarity);
+            if (exact >= minSimilarity) {
+                assertEquals(exact, bounded, s1 + " / " + s2);
+            } else {
+                assertTrue(bounded >= exact && bounded < minSimilarity, s1 + " / " + s2 + ": " + bounded);
+            }
+        }
+    }
+
+    @Test
+    void tokenListsMatchThePlainDynamicProgram() {
+        SplittableRandom random = new SplittableRandom(13L);
+        List<String> tokens = List.of("opec", "ec", "gatt", "imf", "OPEC");
+        Vocabulary vocabulary = new Vocabulary(tokens);
+        for (int i = 0; i < 500; i++) {
+            List<String> list1 = randomTokens(random, tokens);
+            List<String> list2 = randomTokens(random, tokens);
+            int maxLen = Math.max(list1.size(), list2.size());
+            double expected = maxLen == 0 ? 1.0 : 1.0 - (double) plainDistance(list1, list2) / maxLen;
+            assertEquals(expected, MEASURE.calculate(list1, list2), list1 + " / " + list2);
+
+            // Ids in list order, so the id form sees the same sequences
+            int[] ids1 = list1.stream().mapToInt(vocabulary::idOf).toArray();
+            int[] ids2 = list2.stream().mapToInt(vocabulary::idOf).toArray();
+            assertEquals(expected, MEASURE.calculate(vocabulary, ids1, ids2), list1 + " / " + list2);
+        }
+    }
+
+    private static String randomString(SplittableRandom random, String alphabet, int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    private static List<String> randomTokens(SplittableRandom random, List<String> tokens) {
+        List<String> list = new ArrayList<>();
+        for (int i = random.nextInt(6); i > 0; i--) {
+            list.add(tokens.get(random.nextInt(tokens.size())));
+        }
+        return list;
+    }
+
+    // The full matrix of the original implementation
+    private static int plainDistance(String s1, String s2) {
+        return plainDistance(s1.chars().boxed().toList(), s2.chars().boxed().toList());
+    }
+
+    private static int plainDistance(List<?> list1, List<?> list2) {
+        int[][] dp = new int[list1.size() + 1][list2.size() + 1];
+        for (int i = 0; i <= list1.size(); i++) dp[i][0] = i;
+        for (int j = 0; j <= list2.size(); j++) dp[0][j] = j;
+        for (int i = 1; i <= list1.size(); i++) {
+            for (int j = 1; j <= list2.size(); j++) {
+                int cost = list1.get(i - 1).equals(list2.get(j - 1)) ? 0 : 1;
+                dp[i][j] = Math.min(Math.min(dp[i - 1][j] + 1, dp[i][j - 1] + 1), dp[i - 1][j - 1] + cost);
+            }
+        }
+        return dp[list1.size()][list2.size()];
+    }
+}
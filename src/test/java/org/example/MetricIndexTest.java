@@ -0,0 +1,111 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Vantage-point tree searches against a full scan, on word counts placed by hand and on the corpus
+class MetricIndexTest {
+
+    private static final List<DistanceMetric> METRICS = List.of(
+            new EuclideanDistance(), new ManhattanDistance(), new ChebyshevDistance());
+    private static final int[] WORD_COUNT = {9};
+
+    @Test
+    void nearestWordCountsOnALine() {
+        // Word counts 0, 10, ..., 990, with a duplicate of 500 at the end
+        List<Document> documents = new ArrayList<>();
+        for (int row = 0; row < 100; row++) {
+            documents.add(TestCorpus.wordCountDocument(String.valueOf(row), "a", 10 * row));
+        }
+        documents.add(TestCorpus.wordCountDocument("100", "a", 500));
+        TrainingStore store = new TrainingStore(documents, FeatureDictionary.of(documents));
+        VantagePointTree tree = new VantagePointTree(store, new EuclideanDistance(), new JaccardTextMeasure(), WORD_COUNT);
+
+        NearestNeighbors neighbors = new NearestNeighbors(4, store.size());
+        tree.search(TestCorpus.wordCountDocument("q", "a", 503).getFeatures(), neighbors, WORD_COUNT, null);
+        // Equal distances keep training order
+        assertArrayEquals(new int[]{50, 100, 51, 49}, rows(neighbors));
+        assertArrayEquals(new double[]{3, 3, 7, 13}, distances(neighbors));
+        // A query far from most rows reaches few leaves
+        assertTrue(tree.getSavedFraction() > 0.5, tree.toString());
+    }
+
+    @Test
+    void randomPointsMatchAFullScan() {
+        SplittableRandom random = new SplittableRandom(5L);
+        List<Document> documents = new ArrayList<>();
+        for (int row = 0; row < 300; row++) {
+            documents.add(new Document(String.valueOf(row), new FeatureVector("", List.of(), "", "", "", List.of(), "", "",
+                    random.nextInt(7), random.nextInt(40)), "a"));
+        }
+        TrainingStore store = new TrainingStore(documents, FeatureDictionary.of(documents));
+        int[] features = {8, 9};
+        TextMeasure measure = new JaccardTextMeasure();
+
+        for (DistanceMetric metric : METRICS) {
+            VantagePointTree tree = new VantagePointTree(store, metric, measure, features);
+            for (int k : new int[]{1, 7, 300}) {
+                for (int i = 0; i < 20; i++) {
+                    FeatureVector query = new FeatureVector("", List.of(), "", "", "", List.of(), "", "",
+                            random.nextInt(7), random.nextInt(40));
+                    NearestNeighbors indexed = new NearestNeighbors(k, store.size());
+                    tree.search(query, indexed, features, null);
+                    NearestNeighbors scanned = new NearestNeighbors(k, store.size());
+                    scanned.reset();
+                    for (int row = 0; row < store.size(); row++) {
+                        scanned.offer(metric.calculate(query, store, row, measure, features), row);
+                    }
+                    scanned.finish();
+                    assertArrayEquals(rows(scanned), rows(indexed), metric.getClass().getSimpleName() + ", k=" + k);
+                }
+            }
+        }
+    }
+
+    @Test
+    void metricIndexMatchesFullScan() {
+        TextMeasure measure = new JaccardTextMeasure();
+        for (DistanceMetric metric : METRICS) {
+            KNN model = TestCorpus.model(5, TestCorpus.ALL_FEATURES, metric, measure);
+            model.setUseMetricIndex(true);
+            assertTrue(model.isMetric());
+            model.evaluateModel();
+            assertEquals(TestCorpus.fullScan(model, 5, TestCorpus.ALL_FEATURES, metric, measure),
+                    model.getPredictedLabels(), metric.getClass().getSimpleName());
+            assertTrue(model.getIndexReport().startsWith("VP-tree"), model.getIndexReport());
+        }
+    }
+
+    @Test
+    void metricIndexIsSkippedForNonMetricMeasures() {
+        DistanceMetric metric = new EuclideanDistance();
+        TextMeasure measure = new LevenshteinTextMeasure();
+        KNN model = TestCorpus.model(5, TestCorpus.ALL_FEATURES, metric, measure);
+        model.setUseMetricIndex(true);
+        assertFalse(model.isMetric());
+        model.evaluateModel();
+        assertEquals(TestCorpus.fullScan(model, 5, TestCorpus.ALL_FEATURES, metric, measure), model.getPredictedLabels());
+        assertTrue(model.getIndexReport().startsWith("Full scan"), model.getIndexReport());
+    }
+
+    private static int[] rows(NearestNeighbors neighbors) {
+        int[] rows = new int[neighbors.size()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = neighbors.row(i);
+        }
+        return rows;
+    }
+
+    private static double[] distances(NearestNeighbors neighbors) {
+        double[] distances = new double[neighbors.size()];
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = neighbors.distance(i);
+        }
+        return distances;
+    }
+}
@@ -0,0 +1,151 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// MinHash candidates and the searches over them against a full scan, on rows written by hand and on the corpus
+class MinHashIndexTest {
+
+    private static final int[] PEOPLE_AND_ORGANISATIONS = {0, 1};
+
+    private static final List<Document> DOCUMENTS = List.of(
+            document("0", "john", "opec"), document("1", "john", "opec"), document("2", ""),
+            document("3", "mary", "imf", "ec"), document("4", ""), document("5", "johnny", "opec", "imf"));
+
+    @Test
+    void candidatesShareABandWithTheQuery() {
+        FeatureDictionary dictionary = FeatureDictionary.of(DOCUMENTS);
+        TrainingStore store = new TrainingStore(DOCUMENTS.stream().map(dictionary::encode).toList(), dictionary);
+        MinHashIndex index = new MinHashIndex(store, new EuclideanDistance(), new JaccardTextMeasure(),
+                PEOPLE_AND_ORGANISATIONS, 4, 4);
+
+        // Equal token sets agree on every band, sets without a common token on none
+        int[] candidates = index.candidates(store.getFeatures(0));
+        assertTrue(Arrays.binarySearch(candidates, 0) >= 0 && Arrays.binarySearch(candidates, 1) >= 0);
+        assertTrue(Arrays.binarySearch(candidates, 3) < 0, Arrays.toString(candidates));
+        candidates = index.candidates(store.getFeatures(3));
+        assertTrue(Arrays.binarySearch(candidates, 3) >= 0 && Arrays.binarySearch(candidates, 0) < 0, Arrays.toString(candidates));
+        assertArrayEquals(new int[]{2, 4}, index.candidates(store.getFeatures(2)));
+    }
+
+    @Test
+    void fewerCandidatesThanKScanEveryRow() {
+        FeatureDictionary dictionary = FeatureDictionary.of(DOCUMENTS);
+        TrainingStore store = new TrainingStore(DOCUMENTS.stream().map(dictionary::encode).toList(), dictionary);
+        DistanceMetric metric = new EuclideanDistance();
+        TextMeasure measure = new JaccardTextMeasure();
+        MinHashIndex index = new MinHashIndex(store, metric, measure, PEOPLE_AND_ORGANISATIONS, 4, 4);
+
+        FeatureVector query = store.getFeatures(3);
+        NearestNeighbors neighbors = new NearestNeighbors(3, store.size());
+        index.search(query, neighbors, 3, PEOPLE_AND_ORGANISATIONS, null);
+        assertArrayEquals(rows(fullScan(query, store, metric, measure, PEOPLE_AND_ORGANISATIONS, 3)), rows(neighbors));
+
+        // The query's own row is enough for k = 1
+        neighbors = new NearestNeighbors(1, store.size());
+        index.search(query, neighbors, 1, PEOPLE_AND_ORGANISATIONS, null);
+        assertArrayEquals(new int[]{3}, rows(neighbors));
+    }
+
+    @Test
+    void indexNeedsATextFeatureAndPositiveBands() {
+        FeatureDictionary dictionary = FeatureDictionary.of(DOCUMENTS);
+        TrainingStore store = new TrainingStore(DOCUMENTS.stream().map(dictionary::encode).toList(), dictionary);
+        DistanceMetric metric = new EuclideanDistance();
+        TextMeasure measure = new JaccardTextMeasure();
+
+        assertThrows(IllegalArgumentException.class, () -> new MinHashIndex(store, metric, measure, new int[]{8, 9}, 4, 4));
+        assertThrows(IllegalArgumentException.class, () -> new MinHashIndex(store, metric, measure, PEOPLE_AND_ORGANISATIONS, 0, 4));
+        assertThrows(IllegalArgumentException.class, () -> new MinHashIndex(store, metric, measure, PEOPLE_AND_ORGANISATIONS, 4, 0));
+    }
+
+    @Test
+    void approximateSearchFallsBackToFullScan() {
+        int k = 5;
+        DistanceMetric metric = new EuclideanDistance();
+        TextMeasure measure = new JaccardTextMeasure();
+        KNN model = TestCorpus.model(k, TestCorpus.ALL_FEATURES, metric, measure);
+        TrainingStore store = model.getTrainingStore();
+        int[] features = TestCorpus.ALL_FEATURES.stream().mapToInt(Integer::intValue).toArray();
+        // Strict bands, so that many queries have fewer than k candidates
+        MinHashIndex index = new MinHashIndex(store, metric, measure, features, 2, 16);
+
+        int fallbacks = 0;
+        for (FeatureVector query : model.getTestFeatures()) {
+            int[] candidates = index.candidates(query);
+            NearestNeighbors approximate = new NearestNeighbors(k, store.size());
+            index.search(query, approximate, k, features, null);
+            NearestNeighbors exact = fullScan(query, store, metric, measure, features, k);
+
+            if (candidates.length < k) {
+                fallbacks++;
+                assertArrayEquals(rows(exact), rows(approximate));
+            } else {
+                // Only candidates, ranked with their exact distance
+                for (int i = 0; i < approximate.size(); i++) {
+                    assertTrue(Arrays.binarySearch(candidates, approximate.row(i)) >= 0);
+                    assertEquals(metric.calculate(query, store, approximate.row(i), measure, features), approximate.distance(i));
+                }
+            }
+        }
+        assertTrue(fallbacks > 0, "no query fell back to the full scan");
+    }
+
+    @Test
+    void emptyQueriesGetTheEmptyRows() {
+        DistanceMetric metric = new EuclideanDistance();
+        TextMeasure measure = new JaccardTextMeasure();
+        KNN model = TestCorpus.model(5, TestCorpus.TEXT_FEATURES, metric, measure);
+        TrainingStore store = model.getTrainingStore();
+        int[] features = TestCorpus.TEXT_FEATURES.stream().mapToInt(Integer::intValue).toArray();
+        MinHashIndex index = new MinHashIndex(store, metric, measure, features, 8, 2);
+
+        int[] emptyRows = IntStream.range(0, store.size())
+                .filter(row -> isEmpty(store.getFeatures(row)))
+                .toArray();
+        assertTrue(emptyRows.length > 0);
+        for (FeatureVector query : model.getTestFeatures()) {
+            int[] candidates = index.candidates(query);
+            if (isEmpty(query)) {
+                assertArrayEquals(emptyRows, candidates);
+            } else {
+                for (int row : emptyRows) {
+                    assertTrue(Arrays.binarySearch(candidates, row) < 0, "empty row " + row + " is a candidate");
+                }
+            }
+        }
+    }
+
+    private static NearestNeighbors fullScan(FeatureVector query, TrainingStore store, DistanceMetric metric,
+                                             TextMeasure measure, int[] features, int k) {
+        NearestNeighbors neighbors = new NearestNeighbors(k, store.size());
+        neighbors.reset();
+        for (int row = 0; row < store.size(); row++) {
+            neighbors.offer(metric.calculate(query, store, row, measure, features), row);
+        }
+        neighbors.finish();
+        return neighbors;
+    }
+
+    private static int[] rows(NearestNeighbors neighbors) {
+        int[] rows = new int[neighbors.size()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = neighbors.row(i);
+        }
+        return rows;
+    }
+
+    private static Document document(String id, String person, String... organisations) {
+        return new Document(id, new FeatureVector(person, List.of(organisations), "", "", "", List.of(), "", "", 0, 0), "a");
+    }
+
+    private static boolean isEmpty(FeatureVector features) {
+        return Arrays.stream(FeatureDictionary.CATEGORICAL_FEATURES).allMatch(index -> features.getCategory(index).isEmpty())
+                && Arrays.stream(FeatureDictionary.MULTI_VALUED_FEATURES).allMatch(index -> features.getCategories(index).isEmpty());
+    }
+}
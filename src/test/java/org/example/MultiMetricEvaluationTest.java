@@ -0,0 +1,89 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// One pass over the distances for several metrics against one evaluateModel per metric
+class MultiMetricEvaluationTest {
+
+    private static final List<DistanceMetric> METRICS = List.of(
+            new EuclideanDistance(), new ManhattanDistance(), new ChebyshevDistance());
+
+    private static ExecutorService executor;
+
+    @BeforeAll
+    static void startExecutor() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterAll
+    static void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void metricsPassMatchesOneEvaluationPerMetric() {
+        TextMeasure measure = new LevenshteinTextMeasure();
+        KNN model = TestCorpus.model(5, TestCorpus.ALL_FEATURES, METRICS.get(0), measure);
+        Map<DistanceMetric, EvaluationResult> sequential = model.evaluateMetrics(METRICS);
+        Map<DistanceMetric, EvaluationResult> concurrent = model.evaluateMetrics(METRICS, executor);
+
+        for (DistanceMetric metric : METRICS) {
+            KNN single = TestCorpus.model(5, TestCorpus.ALL_FEATURES, metric, measure);
+            single.evaluateModel();
+            TestCorpus.assertSameResult(single.getResult(), sequential.get(metric));
+            TestCorpus.assertSameResult(single.getResult(), concurrent.get(metric));
+        }
+    }
+
+    @Test
+    void prunedPassMatchesOnNumericFeatures() {
+        // Points where the three metrics rank neighbors differently: a label per quadrant of (day, word count)
+        SplittableRandom random = new SplittableRandom(17L);
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            int day = random.nextInt(7);
+            int words = random.nextInt(60);
+            String label = (day < 3 ? "early" : "late") + (words < 30 ? "-short" : "-long");
+            documents.add(new Document(String.valueOf(i), new FeatureVector("", List.of(), "", "", "", List.of(), "", "",
+                    day, words), label));
+        }
+
+        for (int k : new int[]{1, 4, 9}) {
+            for (boolean earlyAbandon : new boolean[]{false, true}) {
+                KNN model = new KNN(k, 0.6, Set.of(8, 9), METRICS.get(2), new JaccardTextMeasure());
+                model.setEarlyAbandon(earlyAbandon);
+                model.splitDataset(documents);
+                Map<DistanceMetric, EvaluationResult> results = model.evaluateMetrics(METRICS);
+                assertEquals(METRICS, List.copyOf(results.keySet()));
+
+                for (DistanceMetric metric : METRICS) {
+                    KNN single = new KNN(k, 0.6, Set.of(8, 9), metric, new JaccardTextMeasure());
+                    single.splitDataset(documents);
+                    single.evaluateModel();
+                    TestCorpus.assertSameResult(single.getResult(), results.get(metric));
+                }
+            }
+        }
+    }
+
+    @Test
+    void noMetricIsRejected() {
+        KNN model = TestCorpus.model(5, TestCorpus.ALL_FEATURES, METRICS.get(0), new JaccardTextMeasure());
+        assertThrows(IllegalArgumentException.class, () -> model.evaluateMetrics(List.of()));
+        assertEquals("Full scan", model.getMetricsIndexReport());
+        model.setUseMetricIndex(true);
+        assertTrue(model.getMetricsIndexReport().contains("metric index is not used"), model.getMetricsIndexReport());
+    }
+}
@@ -0,0 +1,100 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Top-k selection against sorting every candidate by (distance, row), and the vote on the selected rows
+class NearestNeighborsTest {
+
+    @Test
+    void heapAndQuickselectMatchAFullSort() {
+        SplittableRandom random = new SplittableRandom(3L);
+        int candidates = 200;
+        // Small ks keep a heap, large ones buffer everything and quickselect
+        for (int k : new int[]{1, 2, 5, 24, 25, 60, 200, 250}) {
+            NearestNeighbors neighbors = new NearestNeighbors(k, candidates);
+            for (int query = 0; query < 5; query++) {
+                // Few distinct distances, so that ties are decided by row
+                double[] distances = random.doubles(candidates).map(d -> Math.floor(d * 10) / 10).toArray();
+                int[] offerOrder = IntStream.range(0, candidates).map(i -> candidates - 1 - i).toArray();
+
+                neighbors.reset();
+                for (int row : offerOrder) {
+                    neighbors.offer(distances[row], row);
+                }
+                neighbors.finish();
+
+                List<Integer> expected = IntStream.range(0, candidates).boxed()
+                        .sorted(Comparator.<Integer>comparingDouble(row -> distances[row]).thenComparing(row -> row))
+                        .limit(k)
+                        .toList();
+                assertEquals(expected.size(), neighbors.size(), "k=" + k);
+                for (int i = 0; i < neighbors.size(); i++) {
+                    assertEquals(expected.get(i), neighbors.row(i), "k=" + k + ", neighbor " + i);
+                    assertEquals(distances[expected.get(i)], neighbors.distance(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    void boundIsTheCurrentKthDistance() {
+        NearestNeighbors neighbors = new NearestNeighbors(2, 100);
+        neighbors.reset();
+        neighbors.offer(5.0, 0);
+        assertEquals(Double.POSITIVE_INFINITY, neighbors.bound());
+        neighbors.offer(3.0, 1);
+        assertEquals(5.0, neighbors.bound());
+        neighbors.offer(4.0, 2);
+        assertEquals(4.0, neighbors.bound());
+        // Equal distance, larger row: not before the current k-th
+        neighbors.offer(4.0, 3);
+        neighbors.finish();
+        assertEquals(1, neighbors.row(0));
+        assertEquals(2, neighbors.row(1));
+    }
+
+    @Test
+    void misuseIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new NearestNeighbors(0, 10));
+
+        NearestNeighbors neighbors = new NearestNeighbors(3, 4);
+        neighbors.reset();
+        neighbors.offer(1.0, 0);
+        assertThrows(IllegalStateException.class, () -> neighbors.row(0));
+        for (int row = 1; row < 4; row++) {
+            neighbors.offer(1.0, row);
+        }
+        assertThrows(IllegalStateException.class, () -> neighbors.offer(1.0, 4));
+    }
+
+    @Test
+    void voteTiesGoToTheLabelThatSortsFirst() {
+        // Training order puts "usa" first; ids follow the sorted labels
+        List<Document> training = List.of(
+                TestCorpus.wordCountDocument("1", "usa", 10), TestCorpus.wordCountDocument("2", "uk", 11),
+                TestCorpus.wordCountDocument("3", "canada", 12), TestCorpus.wordCountDocument("4", "usa", 13));
+        TrainingStore store = new TrainingStore(training, FeatureDictionary.of(training));
+        assertEquals(List.of("canada", "uk", "usa"),
+                IntStream.range(0, store.labelCount()).mapToObj(store::getLabel).toList());
+
+        NearestNeighbors neighbors = new NearestNeighbors(3, store.size());
+        neighbors.reset();
+        for (int row = 0; row < store.size(); row++) {
+            neighbors.offer(row, row);
+        }
+        neighbors.finish();
+        int[] votes = new int[store.labelCount()];
+        // One vote each for usa and uk
+        assertEquals("uk", KNN.vote(store, neighbors, 2, votes));
+        // One each for usa, uk and canada
+        assertEquals("canada", KNN.vote(store, neighbors, 3, votes));
+        assertEquals("usa", KNN.vote(store, neighbors, 1, votes));
+    }
+}
@@ -0,0 +1,108 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Z-scores of a fitted scaler worked out by hand, scaled views of a store, and models sharing one loaded corpus
+class NormalizationTest {
+
+    private static ExecutorService executor;
+
+    @BeforeAll
+    static void startExecutor() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterAll
+    static void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void fittedScalerGivesZScores() {
+        // Word counts with mean 5 and population standard deviation 2; every day of week is 0
+        int[] wordCounts = {2, 4, 4, 4, 5, 5, 7, 9};
+        List<Document> documents = IntStream.range(0, wordCounts.length)
+                .mapToObj(row -> TestCorpus.wordCountDocument(String.valueOf(row), "a", wordCounts[row]))
+                .toList();
+        NumericScaler scaler = NumericScaler.fit(new TrainingStore(documents, FeatureDictionary.of(documents)));
+
+        assertEquals(-1.5, scaler.scaleWordCount(2));
+        assertEquals(0.0, scaler.scaleWordCount(5));
+        assertEquals(2.0, scaler.scaleWordCount(9));
+        // Values outside the training rows scale the same way
+        assertEquals(3.0, scaler.scaleWordCount(11));
+        // No spread: every value becomes 0
+        assertEquals(0.0, scaler.scaleDayOfWeek(0));
+        assertEquals(0.0, scaler.scaleDayOfWeek(4));
+    }
+
+    @Test
+    void scaledVectorsShareTheTextFeatures() {
+        FeatureVector features = new FeatureVector("john", List.of("opec"), "usa", "", "", List.of("dlr"), "", "", 3, 7);
+        assertSame(features, NumericScaler.IDENTITY.scale(features));
+
+        List<Document> documents = List.of(TestCorpus.wordCountDocument("1", "a", 5), TestCorpus.wordCountDocument("2", "a", 9));
+        FeatureVector scaled = NumericScaler.fit(new TrainingStore(documents, FeatureDictionary.of(documents))).scale(features);
+        // Mean 7, standard deviation 2
+        assertEquals(0.0, scaled.getWordCount9());
+        assertEquals(0.0, scaled.getDayOfWeek8());
+        assertEquals(List.of("opec"), scaled.getCategories(1));
+        assertEquals("john", scaled.getCategory(0));
+        assertEquals(7.0, features.getWordCount9());
+    }
+
+    @Test
+    void scaledViewLeavesTheDocumentsAsLoaded() {
+        List<Document> documents = TestCorpus.encodedDocuments();
+        TrainingStore store = new TrainingStore(documents, FeatureDictionary.of(documents));
+        NumericScaler scaler = NumericScaler.fit(store);
+        TrainingStore scaled = store.scaled(scaler);
+        // Scaling a scaled view starts from the loaded values again
+        TrainingStore rescaled = scaled.scaled(NumericScaler.fit(scaled));
+
+        for (int row = 0; row < store.size(); row++) {
+            FeatureVector expected = scaler.scale(documents.get(row).getFeatures());
+            assertEquals(expected.getDayOfWeek8(), scaled.getNumericColumn(8)[row]);
+            assertEquals(expected.getWordCount9(), scaled.getNumericColumn(9)[row]);
+            assertEquals(expected.getWordCount9(), rescaled.getNumericColumn(9)[row]);
+            assertEquals(documents.get(row).getFeatures().getWordCount9(), store.getNumericColumn(9)[row]);
+        }
+    }
+
+    @Test
+    void modelsOnOneCorpusEvaluateConcurrently() throws Exception {
+        // Not encoded, so every model encodes its own copies
+        List<Document> documents = TestCorpus.documents();
+        KNN reference = new KNN(5, 0.7, TestCorpus.ALL_FEATURES, new EuclideanDistance(), new JaccardTextMeasure());
+        reference.splitDataset(documents);
+        reference.normalizeNumericalFeatures();
+        reference.evaluateModel();
+
+        // Every task splits, scales and evaluates its own model of the same documents
+        List<Future<List<String>>> runs = new ArrayList<>();
+        for (int run = 0; run < 8; run++) {
+            runs.add(executor.submit(() -> {
+                KNN model = new KNN(5, 0.7, TestCorpus.ALL_FEATURES, new EuclideanDistance(), new JaccardTextMeasure());
+                model.splitDataset(documents);
+                model.normalizeNumericalFeatures();
+                model.evaluateModel();
+                return model.getPredictedLabels();
+            }));
+        }
+        for (Future<List<String>> run : runs) {
+            assertEquals(reference.getPredictedLabels(), run.get());
+        }
+        documents.forEach(document -> assertNull(document.getFeatures().getDictionary()));
+    }
+}
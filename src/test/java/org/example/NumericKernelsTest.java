@@ -0,0 +1,86 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Block kernels against hand-computed states and against the metric's row-by-row accumulate
+class NumericKernelsTest {
+
+    private static final List<DistanceMetric> METRICS = List.of(
+            new EuclideanDistance(), new ManhattanDistance(), new ChebyshevDistance());
+
+    @Test
+    void statesFoldOneQueryIntoAColumnSlice() {
+        double[] column = {1, 4, -2, 10, 7};
+        for (NumericKernels kernels : availableKernels()) {
+            // Rows 1 to 3 against query 3, starting from states 1, 2 and 6
+            double[] squares = {1, 2, 6};
+            kernels.sumOfSquares(squares, 3, column, 1, 4);
+            assertArrayEquals(new double[]{2, 27, 55}, squares, kernels.toString());
+
+            double[] sums = {1, 2, 6};
+            kernels.sumOfAbs(sums, 3, column, 1, 4);
+            assertArrayEquals(new double[]{2, 7, 13}, sums, kernels.toString());
+
+            double[] maxima = {1, 2, 9};
+            kernels.maxOfAbs(maxima, 3, column, 1, 4);
+            assertArrayEquals(new double[]{1, 5, 9}, maxima, kernels.toString());
+        }
+    }
+
+    @Test
+    void blockKernelsMatchTheRowByRowFold() {
+        SplittableRandom random = new SplittableRandom(13L);
+        double[] column = random.doubles(203, -50, 50).toArray();
+
+        for (DistanceMetric metric : METRICS) {
+            // Slices shorter than, equal to and between multiples of any vector length
+            for (int[] slice : new int[][]{{0, 0}, {0, 1}, {5, 8}, {3, 20}, {0, 203}, {17, 200}}) {
+                int from = slice[0];
+                int to = slice[1];
+                double query = random.nextDouble(-50, 50);
+                double[] initial = random.doubles(to - from, 0, 100).toArray();
+                double[] expected = new double[to - from];
+                for (int i = 0; i < expected.length; i++) {
+                    expected[i] = metric.accumulate(initial[i], query - column[from + i]);
+                }
+                for (NumericKernels kernels : availableKernels()) {
+                    double[] states = Arrays.copyOf(initial, initial.length);
+                    metric.accumulateBlock(kernels, states, query, column, from, to);
+                    assertArrayEquals(expected, states,
+                            metric.getClass().getSimpleName() + " with " + kernels + " on [" + from + ", " + to + ")");
+                }
+            }
+        }
+    }
+
+    @Test
+    void statesPastTheSliceAreLeftAlone() {
+        double[] column = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+        for (NumericKernels kernels : availableKernels()) {
+            double[] states = new double[10];
+            Arrays.fill(states, -1.0);
+            kernels.sumOfAbs(states, 0, column, 4, 7);
+            assertArrayEquals(new double[]{4, 5, 6, -1, -1, -1, -1, -1, -1, -1}, states, kernels.toString());
+        }
+    }
+
+    @Test
+    void simdIsAvailableWithTheIncubatorModule() {
+        // The surefire argLine adds jdk.incubator.vector
+        assertTrue(NumericKernels.isVectorAvailable());
+        assertSame(NumericKernels.SIMD, NumericKernels.SIMD.requireAvailable());
+        assertSame(NumericKernels.SCALAR, NumericKernels.SCALAR.requireAvailable());
+    }
+
+    private static List<NumericKernels> availableKernels() {
+        return NumericKernels.isVectorAvailable()
+                ? List.of(NumericKernels.SCALAR, NumericKernels.SIMD)
+                : List.of(NumericKernels.SCALAR);
+    }
+}
@@ -0,0 +1,78 @@
+package org.example;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Test documents evaluated in chunks on an executor against the sequential evaluateModel
+class ParallelEvaluationTest {
+
+    private static ExecutorService executor;
+
+    @BeforeAll
+    static void startExecutor() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterAll
+    static void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentEvaluationMatchesSequential() {
+        KNN model = TestCorpus.model(5, TestCorpus.ALL_FEATURES, new EuclideanDistance(), new CosineTextMeasure());
+        model.evaluateModel();
+        EvaluationResult sequential = model.getResult();
+        List<String> labels = model.getPredictedLabels();
+
+        model.evaluateModel(executor);
+        TestCorpus.assertSameResult(sequential, model.getResult());
+        assertEquals(labels, model.getPredictedLabels());
+    }
+
+    @Test
+    void singleWorkerAndManyChunksMatchSequential() {
+        // More test documents than one chunk holds, all queued on one thread
+        List<Document> documents = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            documents.add(TestCorpus.wordCountDocument(String.valueOf(i), i % 3 == 0 ? "short" : "long", (i * 37) % 101));
+        }
+        KNN model = new KNN(3, 0.5, Set.of(9), new ManhattanDistance(), new JaccardTextMeasure());
+        model.splitDataset(documents);
+        model.evaluateModel();
+        EvaluationResult sequential = model.getResult();
+        List<String> labels = model.getPredictedLabels();
+
+        ExecutorService single = Executors.newSingleThreadExecutor();
+        try {
+            model.evaluateModel(single);
+        } finally {
+            single.shutdownNow();
+        }
+        TestCorpus.assertSameResult(sequential, model.getResult());
+        assertEquals(labels, model.getPredictedLabels());
+    }
+
+    @Test
+    void chunksCoverTheTestSetInOrder() {
+        for (int size : new int[]{0, 1, 64, 65, 200}) {
+            List<int[]> chunks = KNN.runInChunks(executor, size, (from, to) -> new int[]{from, to});
+            int next = 0;
+            for (int[] chunk : chunks) {
+                assertEquals(next, chunk[0], "size " + size);
+                assertTrue(chunk[1] > chunk[0], "size " + size);
+                next = chunk[1];
+            }
+            assertEquals(size, next);
+        }
+    }
+}
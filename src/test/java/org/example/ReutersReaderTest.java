@@ -0,0 +1,163 @@
+package org.example;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Streamed REUTERS elements against the whole-file jsoup parse the loader used before. The edge-case file has
+// ticker tags and a < in the body, escaped and bare &s, CRLF line endings, a brief without BODY, text and a
+// <REUTERSX> decoy between elements, and a last element that is never closed.
+class ReutersReaderTest {
+
+    private static final String EDGE_CASES = "reuters-edge-cases.sgm";
+
+    @Test
+    void recordsMatchTheWholeFileParse() throws IOException {
+        String text = resource(EDGE_CASES);
+        List<ReutersRecord> expected = wholeFileParse(text);
+        assertEquals(4, expected.size());
+
+        // Blocks end at every possible position of a tag with a one-character reader
+        for (Reader input : List.of(new StringReader(text), new TrickleReader(new StringReader(text), 1, false))) {
+            assertSameRecords(expected, readAll(new ReutersReader(input)));
+        }
+    }
+
+    @Test
+    void ampersandsStayAsWritten() throws IOException {
+        List<ReutersRecord> records = readAll(new ReutersReader(new StringReader(resource(EDGE_CASES))));
+
+        assertTrue(records.get(0).getBody().contains("rose &lt;5 pct & R&D in Buenos"), records.get(0).getBody());
+        assertTrue(records.get(0).getBody().contains("&lt;ACME Corp&gt; &amp; co."), records.get(0).getBody());
+        assertEquals("BANK OF JAPAN BUYS DOLLARS, SELLS YEN &amp; STG IN TOKYO", records.get(1).getTitle());
+        assertEquals("AT&T TO SELL UNIT", records.get(2).getTitle());
+    }
+
+    @Test
+    void briefWithoutBodyTakesCurrenciesFromTheTitle() throws IOException {
+        ReutersRecord brief = readAll(new ReutersReader(new StringReader(resource(EDGE_CASES)))).get(1);
+        assertEquals("", brief.getBody());
+
+        StringBuilder errors = new StringBuilder();
+        FeatureVector features = new DocumentLoader(DictionaryRegistry.shared()).extractFeatures(brief, errors);
+        assertTrue(features.getCategories(5).contains("dollar"), features.getCategories(5).toString());
+        assertEquals(0.0, features.getNumeric(9));
+        assertEquals("", errors.toString());
+    }
+
+    @Test
+    void readErrorEndsTheFileAfterTheCompleteElements() throws IOException {
+        String text = resource(EDGE_CASES);
+        List<ReutersRecord> expected = wholeFileParse(text);
+        // Fails in the middle of the third element
+        int failAt = text.indexOf("AT&T Corp");
+        ReutersReader reader = new ReutersReader(new TrickleReader(new StringReader(text.substring(0, failAt)), 64, true));
+
+        List<ReutersRecord> read = new ArrayList<>();
+        IOException error = assertThrows(IOException.class, () -> {
+            for (String element = reader.nextElement(); element != null; element = reader.nextElement()) {
+                read.add(ReutersReader.parse(element));
+            }
+        });
+        assertEquals("cut off", error.getMessage());
+        assertSameRecords(expected.subList(0, 2), read);
+    }
+
+    @Test
+    void textWithoutElements() throws IOException {
+        ReutersReader reader = new ReutersReader(new StringReader("<!DOCTYPE lewis SYSTEM \"lewis.dtd\">\n<REUTERSX>"));
+        assertNull(reader.nextElement());
+        assertNull(reader.nextElement());
+        assertThrows(IllegalArgumentException.class, () -> ReutersReader.parse("<TITLE>no element</TITLE>"));
+    }
+
+    // Records as DocumentLoader read them before streaming: one DOM of the whole escaped file
+    private static List<ReutersRecord> wholeFileParse(String text) {
+        List<ReutersRecord> records = new ArrayList<>();
+        for (Element reuters : Jsoup.parse(text.replace("&", "&amp;"), "", Parser.xmlParser()).select("REUTERS")) {
+            records.add(new ReutersRecord(
+                    reuters.attr("NEWID"),
+                    reuters.select("TITLE").text(),
+                    reuters.select("BODY").text(),
+                    reuters.select("AUTHOR").text(),
+                    reuters.select("DATELINE").text(),
+                    reuters.select("DATE").text(),
+                    reuters.select("TOPICS D").eachText(),
+                    reuters.select("PLACES D").eachText()));
+        }
+        return records;
+    }
+
+    private static List<ReutersRecord> readAll(ReutersReader reader) throws IOException {
+        List<ReutersRecord> records = new ArrayList<>();
+        try (reader) {
+            for (String element = reader.nextElement(); element != null; element = reader.nextElement()) {
+                records.add(ReutersReader.parse(element));
+            }
+        }
+        return records;
+    }
+
+    private static void assertSameRecords(List<ReutersRecord> expected, List<ReutersRecord> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            ReutersRecord e = expected.get(i);
+            ReutersRecord a = actual.get(i);
+            String record = "record " + e.getNewId();
+            assertEquals(e.getNewId(), a.getNewId(), record);
+            assertEquals(e.getTitle(), a.getTitle(), record);
+            assertEquals(e.getBody(), a.getBody(), record);
+            assertEquals(e.getAuthor(), a.getAuthor(), record);
+            assertEquals(e.getDateline(), a.getDateline(), record);
+            assertEquals(e.getDate(), a.getDate(), record);
+            assertEquals(e.getTopics(), a.getTopics(), record);
+            assertEquals(e.getPlaces(), a.getPlaces(), record);
+        }
+    }
+
+    private static String resource(String name) throws IOException {
+        try (InputStream input = ReutersReaderTest.class.getClassLoader().getResourceAsStream(name)) {
+            assertNotNull(input, name);
+            return new String(input.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    // Hands out at most chunk characters per read; with failAtEnd, fails at the end of its input instead of
+    // returning -1
+    private static final class TrickleReader extends Reader {
+        private final Reader delegate;
+        private final int chunk;
+        private final boolean failAtEnd;
+
+        TrickleReader(Reader delegate, int chunk, boolean failAtEnd) {
+            this.delegate = delegate;
+            this.chunk = chunk;
+            this.failAtEnd = failAtEnd;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int read = delegate.read(buffer, offset, Math.min(length, chunk));
+            if (read < 0 && failAtEnd) {
+                throw new IOException("cut off");
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Precomputed similarity tables against the measure they were filled from
+class TabulatedTextMeasureTest {
+
+    private static final List<TextMeasure> MEASURES = List.of(
+            new JaccardTextMeasure(), new LevenshteinTextMeasure(), new CosineTextMeasure());
+
+    @Test
+    void denseAndLazyTablesMatchTheirDelegate() {
+        FeatureDictionary dictionary = FeatureDictionary.of(TestCorpus.documents());
+        for (TextMeasure measure : MEASURES) {
+            // The default budget holds every table; no budget leaves only row caches
+            for (TabulatedTextMeasure tables : List.of(new TabulatedTextMeasure(dictionary, measure),
+                    new TabulatedTextMeasure(dictionary, measure, 0))) {
+                for (int index : FeatureDictionary.CATEGORICAL_FEATURES) {
+                    Vocabulary vocabulary = dictionary.vocabulary(index);
+                    for (int id1 = 0; id1 < vocabulary.size(); id1++) {
+                        for (int id2 = 0; id2 < vocabulary.size(); id2++) {
+                            assertEquals(measure.calculate(vocabulary, id1, id2), tables.calculate(vocabulary, id1, id2),
+                                    tables.toString());
+                        }
+                    }
+                }
+                assertEquals(0, tables.getCache().getMisses(), "single values never reach the cache");
+            }
+        }
+    }
+
+    @Test
+    void rowCachesGrowWithTheQueriedValues() {
+        List<Document> documents = List.of(
+                new Document("1", new FeatureVector("john", List.of("opec"), "", "", "", List.of(), "", "", 0, 0), "a"),
+                new Document("2", new FeatureVector("mary", List.of("ec"), "", "", "", List.of(), "", "", 0, 0), "b"),
+                new Document("3", new FeatureVector("jo", List.of(), "", "", "", List.of(), "", "", 0, 0), "a"));
+        FeatureDictionary dictionary = FeatureDictionary.of(documents);
+        Vocabulary names = dictionary.vocabulary(0);
+        // jo, john and mary
+        assertEquals(3, names.size());
+
+        TabulatedTextMeasure dense = new TabulatedTextMeasure(dictionary, new JaccardTextMeasure());
+        TabulatedTextMeasure lazy = new TabulatedTextMeasure(dictionary, new JaccardTextMeasure(), 0);
+        // Features 2, 3, 4, 6, 7 only have the empty value: 1x1 tables
+        assertEquals((3 * 3 + 5) * Double.BYTES, dense.memoryBytes());
+        assertEquals(0, lazy.memoryBytes());
+
+        assertEquals(0.5, lazy.calculate(names, names.idOf("jo"), names.idOf("john")));
+        assertEquals(0.5, lazy.calculate(names, names.idOf("jo"), names.idOf("john"), 0.9));
+        assertEquals(3 * Double.BYTES, lazy.memoryBytes());
+        assertEquals(0.5, lazy.calculate(names, names.idOf("john"), names.idOf("jo")));
+        assertEquals(2 * 3 * Double.BYTES, lazy.memoryBytes());
+    }
+
+    @Test
+    void listFeaturesAndForeignVocabulariesGoThroughTheCache() {
+        FeatureDictionary dictionary = FeatureDictionary.of(TestCorpus.documents());
+        TabulatedTextMeasure tables = new TabulatedTextMeasure(dictionary, new JaccardTextMeasure());
+        Vocabulary organisations = dictionary.vocabulary(1);
+        int[] ids = {organisations.idOf("ec"), organisations.idOf("opec")};
+        Vocabulary foreign = new Vocabulary(List.of("ab", "b"));
+
+        assertEquals(1.0, tables.calculate(organisations, ids, ids));
+        assertEquals(0.5, tables.calculate(foreign, 0, 1));
+        assertEquals(0.5, tables.calculate(foreign, 1, 0));
+        assertEquals(2, tables.getCache().getMisses());
+        assertEquals(1, tables.getCache().getHits());
+    }
+}
@@ -0,0 +1,115 @@
+package org.example;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Small fixed corpus for comparing the optimized paths with the plain calculation. Values are drawn from short
+// lists with a fixed seed, so there are repeated values, case variants, empty values and exact distance ties,
+// and the label follows the country often enough for the classifier to be better than chance.
+final class TestCorpus {
+
+    static final int SIZE = 120;
+    static final Set<Integer> ALL_FEATURES = new TreeSet<>(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
+    static final Set<Integer> TEXT_FEATURES = new TreeSet<>(List.of(0, 1, 2, 3, 4, 5, 6, 7));
+
+    private static final String[] NAMES = {"", "john", "John", "mary", "jo", "james baker", "yeutter", "volcker"};
+    private static final String[] ORGANISATIONS = {"opec", "OPEC", "ec", "gatt", "imf", "worldbank", "fed"};
+    private static final String[] COUNTRIES = {"usa", "uk", "japan", "canada", "west-germany", ""};
+    private static final String[] CITIES = {"", "new york", "london", "tokyo", "toronto", "bonn", "new-york"};
+    private static final String[] TOPICS = {"earn", "acq", "crude", "trade", "money-fx", ""};
+    private static final String[] CURRENCIES = {"dlr", "yen", "stg", "dmk", "can", "DLR"};
+    private static final String[] AUTHORS = {"", "by peter torday", "by jeremy solomon", "by alan wheatley"};
+    private static final String[] PLACES = {"", "NEW YORK", "LONDON", "TOKYO", "OTTAWA", "WASHINGTON"};
+    private static final String[] LABELS = {"usa", "uk", "japan", "canada", "west-germany"};
+
+    private TestCorpus() {
+    }
+
+    // New, unencoded documents; every call returns equal ones
+    static List<Document> documents() {
+        SplittableRandom random = new SplittableRandom(7L);
+        List<Document> documents = new ArrayList<>();
+        for (int id = 0; id < SIZE; id++) {
+            // A few documents have no text at all
+            boolean empty = id % 29 == 0;
+            int country = random.nextInt(COUNTRIES.length);
+            FeatureVector features = new FeatureVector(
+                    empty ? "" : pick(random, NAMES),
+                    empty ? List.of() : some(random, ORGANISATIONS),
+                    empty ? "" : COUNTRIES[country],
+                    empty ? "" : pick(random, CITIES),
+                    empty ? "" : pick(random, TOPICS),
+                    empty ? List.of() : some(random, CURRENCIES),
+                    empty ? "" : pick(random, AUTHORS),
+                    empty ? "" : pick(random, PLACES),
+                    random.nextInt(7),
+                    20 + random.nextInt(40) * 10);
+            String label = country < LABELS.length && random.nextInt(3) > 0 ? LABELS[country] : pick(random, LABELS);
+            documents.add(new Document(Integer.toString(id), features, label));
+        }
+        return documents;
+    }
+
+    // The same documents encoded with one dictionary, as DocumentLoader returns them
+    static List<Document> encodedDocuments() {
+        List<Document> documents = documents();
+        FeatureDictionary dictionary = FeatureDictionary.of(documents);
+        return documents.stream().map(dictionary::encode).toList();
+    }
+
+    // Document with no text and the given word count, for hand-built examples on feature 9
+    static Document wordCountDocument(String id, String label, int wordCount) {
+        return new Document(id, new FeatureVector("", List.of(), "", "", "", List.of(), "", "", 0, wordCount), label);
+    }
+
+    // Split and normalized model of the encoded corpus
+    static KNN model(int k, Set<Integer> features, DistanceMetric metric, TextMeasure textMeasure) {
+        KNN model = new KNN(k, 0.7, features, metric, textMeasure);
+        model.splitDataset(encodedDocuments());
+        model.normalizeNumericalFeatures();
+        return model;
+    }
+
+    // Baseline labels of a split model: every test document against every training row with the plain distance,
+    // no pruning and no index, voted as KNN votes
+    static List<String> fullScan(KNN model, int k, Set<Integer> features, DistanceMetric metric,
+                                 TextMeasure textMeasure) {
+        TrainingStore store = model.getTrainingStore();
+        int[] featureIndices = features.stream().mapToInt(Integer::intValue).toArray();
+        NearestNeighbors neighbors = new NearestNeighbors(k, store.size());
+        int[] votes = new int[store.labelCount()];
+        List<String> labels = new ArrayList<>();
+        for (FeatureVector query : model.getTestFeatures()) {
+            neighbors.reset();
+            for (int row = 0; row < store.size(); row++) {
+                neighbors.offer(metric.calculate(query, store, row, textMeasure, featureIndices), row);
+            }
+            neighbors.finish();
+            labels.add(KNN.vote(store, neighbors, k, votes));
+        }
+        return labels;
+    }
+
+    // Same metrics, compared exactly
+    static void assertSameResult(EvaluationResult expected, EvaluationResult actual) {
+        assertEquals(expected.getAccuracy(), actual.getAccuracy(), "accuracy");
+        assertEquals(expected.getPrecision(), actual.getPrecision(), "precision");
+        assertEquals(expected.getRecall(), actual.getRecall(), "recall");
+        assertEquals(expected.getF1(), actual.getF1(), "F1");
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    // Zero to three distinct values, sorted as encoding stores them: the token-list Levenshtein depends on the order
+    private static List<String> some(SplittableRandom random, String[] values) {
+        Set<String> chosen = new TreeSet<>();
+        int count = random.nextInt(4);
+        for (int i = 0; i < count; i++) {
+            chosen.add(pick(random, values));
+        }
+        return new ArrayList<>(chosen);
+    }
+}
@@ -0,0 +1,68 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The one-pass tokenization against String.split("\\s+"), which the feature extraction used before
+class TokenizedTextTest {
+
+    private static final List<String> EDGE_CASES = List.of(
+            "", " ", "   ", "word", " word", "word ", "  two  words  ", "\ttabs\tand\nnewlines\r\n",
+            "\u000Bvertical\u000Btab\fform feed", "non\u00A0breaking space", "trailing\n\n", "a b  c");
+
+    @Test
+    void tokensMatchSplit() {
+        for (String text : EDGE_CASES) {
+            assertEquals(Arrays.asList(text.split("\\s+")), TokenizedText.of(text).getTokens(), quote(text));
+        }
+    }
+
+    @Test
+    void randomTextsMatchSplit() {
+        SplittableRandom random = new SplittableRandom(11L);
+        char[] alphabet = {'a', 'B', ' ', '\t', '\n', '\r', '\f', '\u000B', '\u00A0', ','};
+        for (int i = 0; i < 2000; i++) {
+            char[] text = new char[random.nextInt(12)];
+            for (int j = 0; j < text.length; j++) {
+                text[j] = alphabet[random.nextInt(alphabet.length)];
+            }
+            String value = new String(text);
+            assertEquals(Arrays.asList(value.split("\\s+")), TokenizedText.of(value).getTokens(), quote(value));
+        }
+    }
+
+    @Test
+    void leadingWhitespaceYieldsAnEmptyFirstToken() {
+        assertEquals(List.of("", "Bonn", "said"), TokenizedText.of("  Bonn said").getTokens());
+        assertEquals(1, TokenizedText.of("  Bonn said").frequency(""));
+    }
+
+    @Test
+    void emptyAndBlankTexts() {
+        TokenizedText empty = TokenizedText.of("");
+        assertEquals(List.of(""), empty.getTokens());
+        assertEquals(0, empty.wordCount());
+
+        TokenizedText blank = TokenizedText.of(" \n ");
+        assertEquals(List.of(), blank.getTokens());
+        assertEquals(0, blank.wordCount());
+    }
+
+    @Test
+    void frequenciesCountLowerCaseTokens() {
+        TokenizedText text = TokenizedText.of("OPEC said opec and Opec, not OPEC.");
+        assertEquals(2, text.frequency("opec"));
+        assertEquals(1, text.frequency("opec,"));
+        assertEquals(0, text.frequency("OPEC"));
+        assertEquals(7, text.wordCount());
+    }
+
+    private static String quote(String text) {
+        return "\"" + text.replace("\t", "\\t").replace("\n", "\\n").replace("\r", "\\r") + "\"";
+    }
+}
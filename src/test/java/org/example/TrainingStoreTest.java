@@ -0,0 +1,58 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Columnar training store against the documents it was built from
+class TrainingStoreTest {
+
+    @Test
+    void columnsHoldTheDocumentValues() {
+        List<Document> documents = TestCorpus.encodedDocuments();
+        TrainingStore store = new TrainingStore(documents, FeatureDictionary.of(documents));
+
+        for (int row = 0; row < store.size(); row++) {
+            FeatureVector features = documents.get(row).getFeatures();
+            assertSame(documents.get(row), store.getDocument(row));
+            assertEquals(features.getDayOfWeek8(), store.getNumericColumn(8)[row]);
+            assertEquals(features.getWordCount9(), store.getNumericColumn(9)[row]);
+            for (int index : FeatureDictionary.CATEGORICAL_FEATURES) {
+                assertEquals(features.getCategoryId(index), store.getCategoryColumn(index)[row]);
+            }
+            for (int index : FeatureDictionary.MULTI_VALUED_FEATURES) {
+                assertArrayEquals(features.getCategoryIds(index), store.getCategorySetColumn(index)[row]);
+            }
+            assertEquals(documents.get(row).getTargetLabel(), store.getLabel(store.getLabelIds()[row]));
+        }
+    }
+
+    @Test
+    void handWrittenRowsAreStoredByColumn() {
+        List<Document> documents = List.of(
+                new Document("1", new FeatureVector("john", List.of("opec", "ec"), "usa", "", "crude", List.of(),
+                        "", "NEW YORK", 2, 120), "usa"),
+                new Document("2", new FeatureVector("", List.of("ec"), "uk", "london", "", List.of("stg"),
+                        "", "LONDON", 5, 80), "uk"),
+                new Document("3", new FeatureVector("john", List.of(), "usa", "", "", List.of("dlr", "stg"),
+                        "", "", 1, 40), "usa"));
+        FeatureDictionary dictionary = FeatureDictionary.of(documents);
+        TrainingStore store = new TrainingStore(documents.stream().map(dictionary::encode).toList(), dictionary);
+
+        assertEquals(3, store.size());
+        assertArrayEquals(new double[]{2, 5, 1}, store.getNumericColumn(8));
+        assertArrayEquals(new double[]{120, 80, 40}, store.getNumericColumn(9));
+        Vocabulary names = dictionary.vocabulary(0);
+        assertArrayEquals(new int[]{names.idOf("john"), names.idOf(""), names.idOf("john")}, store.getCategoryColumn(0));
+        // Multi-valued rows hold sorted ids
+        Vocabulary organisations = dictionary.vocabulary(1);
+        assertArrayEquals(new int[]{organisations.idOf("ec"), organisations.idOf("opec")}, store.getCategorySetColumn(1)[0]);
+        assertArrayEquals(new int[0], store.getCategorySetColumn(1)[2]);
+        assertEquals(2, store.labelCount());
+        int[] labelIds = store.getLabelIds();
+        assertEquals(labelIds[0], labelIds[2]);
+        assertNotEquals(labelIds[0], labelIds[1]);
+    }
+}